@@ -0,0 +1,71 @@
+package com.readyplayer2.aco.dynamic.benchmarks;
+
+import com.readyplayer2.aco.dynamic.model.Graph;
+import com.readyplayer2.aco.dynamic.model.GraphNode;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generated graphs for the benchmarks. Nodes are placed on a jittered square
+ * grid so the density stays the same from 100 to 1,000,000 nodes.
+ * @author ReadyPlayer2
+ */
+public final class BenchmarkGraphs {
+    // Distance between grid points
+    private static final double SPACING = 20.0;
+
+    private BenchmarkGraphs() {
+    }
+
+    /**
+     * Creates a graph of nodes with no edges
+     * @param count - number of nodes
+     * @param seed - seed for the node positions
+     * @return the graph
+     */
+    public static Graph nodes(int count, long seed) {
+        Graph graph = new Graph();
+        SplittableRandom random = new SplittableRandom(seed);
+        int side = side(count);
+        for (int i = 0; i < count; i++) {
+            double x = (i % side) * SPACING + random.nextDouble() * SPACING / 2;
+            double y = (i / side) * SPACING + random.nextDouble() * SPACING / 2;
+            graph.addNode(x, y);
+        }
+        return graph;
+    }
+
+    /**
+     * Creates a graph with each node connected to its right and lower
+     * neighbours on the grid. The source is the first node and the
+     * destination is diagonally next to it, so ants find a route quickly.
+     * @param count - number of nodes
+     * @param seed - seed for the node positions
+     * @return the graph
+     */
+    public static Graph grid(int count, long seed) {
+        Graph graph = nodes(count, seed);
+        List<GraphNode> nodes = graph.getNodes();
+        int side = side(count);
+        for (int i = 0; i < count; i++) {
+            if ((i % side) + 1 < side && i + 1 < count) {
+                graph.addEdge(nodes.get(i), nodes.get(i + 1));
+            }
+            if (i + side < count) {
+                graph.addEdge(nodes.get(i), nodes.get(i + side));
+            }
+        }
+        graph.setSourceNode(nodes.get(0));
+        graph.setDestinationNode(nodes.get(Math.min(count - 1, side + 1)));
+        return graph;
+    }
+
+    /**
+     * Gets the number of nodes along one side of the grid
+     * @param count - number of nodes
+     * @return side length
+     */
+    private static int side(int count) {
+        return (int) Math.ceil(Math.sqrt(count));
+    }
+}
@@ -0,0 +1,77 @@
+package com.readyplayer2.aco.dynamic.benchmarks;
+
+import com.readyplayer2.aco.dynamic.model.AntAgent;
+import com.readyplayer2.aco.dynamic.model.CsrGraph;
+import com.readyplayer2.aco.dynamic.model.PheromoneField;
+import com.readyplayer2.aco.dynamic.model.RouletteTable;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Edge choice at a node, with the roulette table already built and with it
+ * rebuilt after a deposit on one of the node's edges
+ * @author ReadyPlayer2
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class ChooseEdgeBenchmark {
+    @Param({"100", "10000", "1000000"})
+    public int nodes;
+
+    private CsrGraph graph;
+    private PheromoneField pheromone;
+    private RouletteTable roulette;
+    private AntAgent ant;
+    private SplittableRandom random;
+
+    @Setup
+    public void setup() {
+        graph = CsrGraph.fromGraph(BenchmarkGraphs.grid(nodes, 1));
+        pheromone = new PheromoneField(graph);
+        random = new SplittableRandom(2);
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+            pheromone.load(e, 1 + random.nextDouble() * 100);
+        }
+        roulette = new RouletteTable(graph, pheromone);
+        ant = new AntAgent(0, graph, 0, new SplittableRandom(3));
+    }
+
+    /**
+     * Moves the ant to a random node with a clean route
+     * @return node index
+     */
+    private int placeAnt() {
+        int node = random.nextInt(graph.getNodeCount());
+        ant.reset();
+        ant.setCurrentNode(node);
+        return node;
+    }
+
+    @Benchmark
+    public int cached() {
+        placeAnt();
+        return ant.chooseEdge(graph, roulette);
+    }
+
+    @Benchmark
+    public int afterDeposit() {
+        int node = placeAnt();
+        pheromone.add(graph.getSlotEdge(graph.getFirstSlot(node)), 1.0, false);
+        return ant.chooseEdge(graph, roulette);
+    }
+}
@@ -0,0 +1,44 @@
+package com.readyplayer2.aco.dynamic.benchmarks;
+
+import com.readyplayer2.aco.dynamic.model.Graph;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The nearest neighbour pass behind the Generate Edges button, on a fresh
+ * graph of unconnected nodes each time
+ * @author ReadyPlayer2
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class GenerateEdgesBenchmark {
+    @Param({"100", "10000", "1000000"})
+    public int nodes;
+
+    private Graph graph;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        graph = BenchmarkGraphs.nodes(nodes, 1);
+    }
+
+    @Benchmark
+    public int generateClosestEdges() {
+        return graph.generateClosestEdges().size();
+    }
+}
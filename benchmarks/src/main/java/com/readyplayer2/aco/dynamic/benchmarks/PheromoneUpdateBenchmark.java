@@ -0,0 +1,54 @@
+package com.readyplayer2.aco.dynamic.benchmarks;
+
+import com.readyplayer2.aco.dynamic.model.Algorithm;
+import com.readyplayer2.aco.dynamic.model.Simulation;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The once per second pheromone update for AS and MMAS. The simulation runs
+ * until it has a best route first so MMAS deposits on it.
+ * @author ReadyPlayer2
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class PheromoneUpdateBenchmark {
+    @Param({"100", "10000", "1000000"})
+    public int nodes;
+
+    @Param({"AS", "MMAS"})
+    public Algorithm algorithm;
+
+    private Simulation simulation;
+
+    @Setup
+    public void setup() {
+        simulation = new Simulation(BenchmarkGraphs.grid(nodes, 1));
+        simulation.setSeed(1);
+        simulation.setAlgorithm(algorithm);
+        simulation.setEventDriven(true);
+        simulation.spawnAnts();
+        for (int i = 0; i < 60 && !simulation.hasBestRoute(); i++) {
+            simulation.runSecond();
+        }
+    }
+
+    @Benchmark
+    public void updatePheromone() {
+        simulation.updatePheromone();
+    }
+}
@@ -0,0 +1,74 @@
+package com.readyplayer2.aco.dynamic.benchmarks;
+
+import com.readyplayer2.aco.dynamic.model.AntAgent;
+import com.readyplayer2.aco.dynamic.model.CsrGraph;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loop detection on an ant's route: checking a node which is not on the
+ * route, and cutting a short loop off the end and walking it again
+ * @author ReadyPlayer2
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class RemoveLoopsBenchmark {
+    @Param({"100", "10000", "1000000"})
+    public int nodes;
+
+    // Number of nodes on the ant's route
+    @Param({"10", "1000"})
+    public int routeLength;
+
+    private AntAgent ant;
+    private int[] route;
+    private int notOnRoute;
+
+    @Setup
+    public void setup() {
+        CsrGraph graph = CsrGraph.fromGraph(BenchmarkGraphs.grid(nodes, 1));
+        ant = new AntAgent(0, graph, 0, new SplittableRandom(1));
+
+        // Distinct nodes, the edges do not need to join up for this
+        int length = Math.min(routeLength, graph.getNodeCount() - 1);
+        route = new int[length];
+        for (int i = 0; i < length; i++) {
+            route[i] = i;
+            ant.pushNodeTaken(i);
+            ant.pushEdgeTaken(i % graph.getEdgeCount(), 1.0);
+        }
+        notOnRoute = length;
+    }
+
+    @Benchmark
+    public int notOnRoute() {
+        return ant.removeLoopsTaken(notOnRoute);
+    }
+
+    @Benchmark
+    public int cutAndWalkBack() {
+        // Cut the last two nodes off, then push them back
+        int length = route.length;
+        int edge = ant.removeLoopsTaken(route[length - 2]);
+        ant.pushNodeTaken(route[length - 2]);
+        ant.pushEdgeTaken(edge, 1.0);
+        ant.pushNodeTaken(route[length - 1]);
+        ant.pushEdgeTaken(edge, 1.0);
+        return edge;
+    }
+}
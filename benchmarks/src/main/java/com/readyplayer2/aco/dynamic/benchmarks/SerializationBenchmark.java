@@ -0,0 +1,108 @@
+package com.readyplayer2.aco.dynamic.benchmarks;
+
+import com.readyplayer2.aco.dynamic.model.EnvironmentFile;
+import com.readyplayer2.aco.dynamic.model.Graph;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing and reading environments, both with the older ObjectOutputStream
+ * node and edge lists and with the binary EnvironmentFile
+ * @author ReadyPlayer2
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class SerializationBenchmark {
+    @Param({"100", "10000", "1000000"})
+    public int nodes;
+
+    private Graph graph;
+    private byte[] saved;
+    private Path binary;
+
+    @Setup
+    public void setup() throws IOException {
+        graph = BenchmarkGraphs.grid(nodes, 1);
+        saved = write();
+        binary = Files.createTempFile("benchmark", ".aco");
+        EnvironmentFile.fromGraph(graph, 1920, 1080).write(binary);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(binary);
+    }
+
+    /**
+     * Writes the screen size, node list and edge list
+     * @return bytes written
+     * @throws IOException required throw
+     */
+    private byte[] write() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeDouble(1920);
+            oos.writeDouble(1080);
+            oos.writeObject(new ArrayList<>(graph.getNodes()));
+            oos.writeObject(new ArrayList<>(graph.getEdges()));
+        }
+        return bos.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] save() throws IOException {
+        return write();
+    }
+
+    @Benchmark
+    public int open() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(saved))) {
+            ois.readDouble();
+            ois.readDouble();
+            List<?> nodeList = (List<?>) ois.readObject();
+            List<?> edgeList = (List<?>) ois.readObject();
+            return nodeList.size() + edgeList.size();
+        }
+    }
+
+    @Benchmark
+    public void saveBinary() throws IOException {
+        EnvironmentFile.fromGraph(graph, 1920, 1080).write(binary);
+    }
+
+    @Benchmark
+    public int openBinary() throws IOException {
+        return EnvironmentFile.read(binary).getEdgeCount();
+    }
+
+    @Benchmark
+    public int openBinaryGraph() throws IOException {
+        Graph loaded = new Graph();
+        EnvironmentFile.read(binary).addTo(loaded, 1, 1);
+        return loaded.getEdges().size();
+    }
+}
@@ -1,5 +1,17 @@
 package com.readyplayer2.aco.dynamic;
 
+import com.readyplayer2.aco.dynamic.model.Algorithm;
+import com.readyplayer2.aco.dynamic.model.EnvironmentFile;
+import com.readyplayer2.aco.dynamic.model.EventLog;
+import com.readyplayer2.aco.dynamic.model.Graph;
+import com.readyplayer2.aco.dynamic.model.GraphEdge;
+import com.readyplayer2.aco.dynamic.model.GraphNode;
+import com.readyplayer2.aco.dynamic.model.NetworkImporter;
+import com.readyplayer2.aco.dynamic.model.Simulation;
+import com.readyplayer2.aco.dynamic.model.SimulationListener;
+import com.readyplayer2.aco.dynamic.model.SimulationRunner;
+import com.readyplayer2.aco.dynamic.model.SimulationSnapshot;
+import com.readyplayer2.aco.dynamic.model.SpatialHash;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -11,19 +23,21 @@ import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
-import java.util.logging.FileHandler;
-import java.util.logging.Handler;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.logging.SimpleFormatter;
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.HostServices;
+import javafx.application.Platform;
 import javafx.beans.value.ObservableValue;
 import javafx.geometry.Insets;
 import javafx.geometry.Rectangle2D;
@@ -38,7 +52,7 @@ import javafx.scene.control.MenuItem;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.SeparatorMenuItem;
 import javafx.scene.control.Slider;
-import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
@@ -48,10 +62,12 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
+import javafx.scene.shape.Shape;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
+import javax.management.JMException;
 
 /**
  * @author ReadyPlayer2
@@ -77,11 +93,15 @@ public class ACODynamic extends Application implements Serializable {
     private final MenuItem newFile = new MenuItem("New");
     private final MenuItem openEnvironment = new MenuItem("Open Environment...");
     private final MenuItem saveEnvironment = new MenuItem("Save Environment...");
+    private final MenuItem importNetwork = new MenuItem("Import Network...");
     private final SeparatorMenuItem separator = new SeparatorMenuItem();
     private final MenuItem exit = new MenuItem("Exit");
     // Edit menu
     private final Menu edit = new Menu("Edit");
     private final MenuItem settings = new MenuItem("Settings...");
+    private final CheckMenuItem eventDriven = new CheckMenuItem("Event Driven Ants");
+    private final CheckMenuItem canvasRendering = new CheckMenuItem("Canvas Rendering");
+    private final CheckMenuItem lazyEvaporation = new CheckMenuItem("Lazy Evaporation");
     // Help menu
     private final Menu help = new Menu("Help");
     private final MenuItem userGuide = new MenuItem("User Guide...");
@@ -91,20 +111,29 @@ public class ACODynamic extends Application implements Serializable {
     private final MenuItem mapCSS = new MenuItem("Map");
     private final MenuItem darkCSS = new MenuItem("Dark");
     
+    // Steps per frame in Fast mode, and time per frame in Unthrottled mode
+    private final int FASTSTEPSPERSECOND = 3000; // 50 per frame at 60 fps
+    
     // MenuBar height, used to offset positions correctly
     private final double MENUBARHEIGHT = 25;
+    // Minimum distance between randomly placed nodes
+    private final double NODESPACING = 4.0;
+    // Hit testing: cell size, largest node radius and click distance from an edge
+    private final double HITCELLSIZE = 32;
+    private final double NODEHITRADIUS = 8;
+    private final double EDGEHITDISTANCE = 3;
     // Multipliers used to ensure correct proportions (dynamic sizing)
     private final double SIMULATIONMULTIPLIER = 0.8;
     private final double LOGMULTIPLIER = 0.2;
     
     // Right section
-    private TextArea log;
+    private ConsoleArea log;
     private ScrollPane scrollPane;
     private final VBox rightVBox = new VBox();
     private final HBox tier1HBox = new HBox(); // Generate Buttons
     private final HBox tier2Hbox = new HBox(); // Start/stop, reset Buttons
     private final HBox tier3HBox = new HBox(); // Toggle for traffic
-    private final HBox tier4HBox = new HBox(); // Algorithm
+    private final HBox tier4HBox = new HBox(); // Algorithm, speed
     private final HBox tier5HBox = new HBox(); // Runtime
     private final HBox tier6HBox = new HBox(); // Best route cost
     private final HBox tier7HBox = new HBox(); // Automated Simulations
@@ -129,10 +158,8 @@ public class ACODynamic extends Application implements Serializable {
     private ChoiceBox<String> mouseModeChoiceBox;
     private final Label algorithmLabel = new Label("Algorithm:");
     private ChoiceBox<String> algorithmChoiceBox;
-    
-    // Enum to determine algorithm being used
-    private enum ALGORITHM {AS, MMAS};
-    private ALGORITHM algorithm = ALGORITHM.AS;
+    private final Label speedLabel = new Label("Speed:");
+    private ChoiceBox<String> speedChoiceBox;
     
     // Settings window variables
     private Stage settingsStage;
@@ -149,6 +176,17 @@ public class ACODynamic extends Application implements Serializable {
     private final Label pherMultiplierLabel = new Label("Pheromone multiplier: ");
     private Slider pherMultiplierSlider;
     private Label pherMultiplierValue;
+    // Steps per second
+    private final Label stepsPerSecondLabel = new Label("Steps per second: ");
+    private Slider stepsPerSecondSlider;
+    private Label stepsPerSecondValue;
+    // Threads stepping the ants
+    private final Label threadsLabel = new Label("Stepping threads: ");
+    private Slider threadsSlider;
+    private Label threadsValue;
+    // Seed
+    private final Label seedLabel = new Label("Seed: ");
+    private TextField seedField;
     // Save button
     private final Button saveSettingsButton = new Button("Save and Close");
     
@@ -172,45 +210,46 @@ public class ACODynamic extends Application implements Serializable {
     
     // Max parameters
     private int MAXNODES = 200;
-    private final int MAXCONNECTIONS = 5;
-    private int MAXANTS = 100; 
-    
-    // Incrementable counters for unique IDs
-    private int uniqueNodeID = 0;
-    private int uniqueEdgeID = 0;
-    private int uniqueAntID = 0;
+    // Most nodes plus edges drawn with a view each, larger graphs use the canvas
+    private final int MAXVIEWS = 20000;
     
-    // List to hold nodes, edges, ants, best route edges
-    private List<Node> nodeList = new ArrayList();
-    private List<Edge> edgeList = new ArrayList();
-    private List<Ant> antList = new ArrayList();
-    private List<Edge> bestRouteEdgeList = new ArrayList();
+    // The environment and the simulation running on it
+    private final Graph graph = new Graph();
+    private final Simulation simulation = new Simulation(graph);
+    // Steps the simulation on a worker thread, edits go through runExclusive()
+    private final SimulationRunner runner = new SimulationRunner(simulation);
     
-    // Pointers to source and destination nodes
-    private Node sourceNode = null;
-    private Node destNode = null;
+    // Views of nodes, edges, ants. Nodes and edges only have views while
+    // canvas rendering is off
+    private final Map<GraphNode, Node> nodeViews = new HashMap<>();
+    private final Map<Integer, Edge> edgeViews = new HashMap<>();
+    // Nodes and edges by position, used for mouse hit testing instead of JavaFX picking
+    private final SpatialHash<GraphNode> nodeHits = new SpatialHash<>(HITCELLSIZE);
+    private final SpatialHash<GraphEdge> edgeHits = new SpatialHash<>(HITCELLSIZE);
+    // Node selected by the first click when creating an edge, or null
+    private GraphNode selectedNode = null;
+    private final List<Ant> antList = new ArrayList<>();
+    // Ant views no longer shown, reused for new ants
+    private final List<Ant> antViewPool = new ArrayList<>();
+    // Draws nodes, edges and ants instead of their views when canvas rendering is on, else null
+    private CanvasRenderer canvasRenderer = null;
     
     // Game loop
     private AnimationTimer simulationLoop;
+    // Redraws the canvas every frame, also while the simulation is stopped
+    private AnimationTimer renderLoop;
     
     // Runtime
-    long simulationRuntime = 0;
     int simulationsRun = 0;
     
-    // Shortest route pointer
-    private double shortestRoute = Double.MAX_VALUE;
-    
-    private final double evaporation = 0.9;
-    private final double pheromoneConstant = 10000;
-    private double PHERMULTIPLIER = 1;
-    private int stagnationCounter = 0;
-    private final int stagnationSecondLimit = 20;
-    
     // Switch to determine mouse click function
     private boolean trafficMode = false;
     
     // Simulation logging to file
-    private Handler fileHandler;
+    // Batches simulation messages onto the log and writes the log file, off the simulation thread
+    private EventLog eventLog;
+    // Ants which followed the best route, summarised once a second
+    private LongAdder followedBestRoute;
     private static final Logger simLogger = Logger.getLogger("NewLog");
     
     /**
@@ -232,8 +271,8 @@ public class ACODynamic extends Application implements Serializable {
         window.setResizable(true);
         
         // Menus and MenuItems
-        file.getItems().addAll(newFile, openEnvironment, saveEnvironment, separator, exit);
-        edit.getItems().addAll(settings);
+        file.getItems().addAll(newFile, openEnvironment, saveEnvironment, importNetwork, separator, exit);
+        edit.getItems().addAll(settings, eventDriven, canvasRendering, lazyEvaporation);
         help.getItems().addAll(userGuide);
         css.getItems().addAll(defaultCSS, mapCSS, darkCSS);
 
@@ -262,77 +301,80 @@ public class ACODynamic extends Application implements Serializable {
         setupButtonHandlers();
         // Setup file logger
         setupLogging();
+        // Setup reporting of simulation events
+        setupSimulationListener();
+        // Publish simulation metrics over JMX
+        try {
+            simulation.getMetrics().register("ACODynamic");
+        } catch (JMException jme) {
+            log.appendText("[E]: Error registering simulation metrics!\n");
+        }
         
-        // Simulation Loop - called at every frame
+        // Simulation Loop - called at every frame, draws the ants and updates
+        // the displays while the runner steps the simulation
         simulationLoop = new AnimationTimer() {
             
-            long antUpdateTimer = System.currentTimeMillis();
-            long iterationTimer = System.currentTimeMillis();
+            // Runtime last shown
+            long shownRuntime = 0;
+            
+            @Override
+            public void start() {
+                shownRuntime = simulation.getRuntime();
+                runner.setStepRate(getStepRate());
+                // Automated runs stop exactly when their time is up
+                runner.setRuntimeLimit(automatedSim ? maxRuntime : Long.MAX_VALUE);
+                runner.start();
+                super.start();
+            }
+            
+            @Override
+            public void stop() {
+                runner.stop();
+                super.stop();
+            }
             
             @Override
             public void handle(long now) {
+                SimulationSnapshot snapshot = runner.getSnapshot();
+                updateDrawAnts(snapshot);
                 
-                // Update every millisecond
-                if (System.currentTimeMillis() - antUpdateTimer > 1) {
-                    
-                    updateDrawAnts();
-                    // Reset update timer
-                    antUpdateTimer = System.currentTimeMillis();
-                }
-                
-                // Update every second
-                if (System.currentTimeMillis() - iterationTimer > 1000) {
-                    
-                    updatePheromone();
-                    // Reset iteration timer
-                    iterationTimer = System.currentTimeMillis();
-                    
-                    // Increment runtime by 1 second
-                    updateRuntime();
-                    
-                    if (!bestRouteEdgeList.isEmpty()) {
-                        // Display best cost (cost can change due to traffic)
-                        bestRouteCostValueLabel.setText(String.valueOf(Math.round(getRouteCost(bestRouteEdgeList))));
-                    }
-                }
-                
-                // Logic for automated simulations
-                if (automatedSim) {
-                    if (simulationsRun < maxIterations) {
-                        if (simulationRuntime > maxRuntime) {
-                            // Stop simulation
-                            startStop.fire();
-                            // Increment counter
-                            simulationsRun++;
-                            // Reset simulation
-                            reset.fire();
-                            // Restart simulation
-                            startStop.fire();
-                        }
-                    } else {
-                        // Stop simulation
-                        simulationLoop.stop();
-                        reset.fire();
-                        
-                        resetAutomatedSim();
-                        
-                        log.appendText("End of automated simulations - see log file for results!\n");
-                    }
+                // Once per simulated second
+                if (snapshot.getRuntime() != shownRuntime) {
+                    shownRuntime = snapshot.getRuntime();
+                    secondPassed(snapshot);
                 }
             }
         };
         
+        renderLoop = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                canvasRenderer.draw(runner.getSnapshot(), selectedNode);
+            }
+        };
+        
         // Set the scene for the window and show it
         window.setScene(scene);
         window.show();
     }
     
+    /**
+     * Overrides Application stop() method: stops the simulation and writes
+     * out anything still waiting to be logged
+     */
+    @Override
+    public void stop() {
+        simulationLoop.stop();
+        simulation.getMetrics().unregister();
+        eventLog.close();
+    }
+    
     /**
      * Constructs all objects in the right pane: log, buttons, etc.
      */
     private void setupRightPane() {
         // Log for simulation messages + debugging
-        log = new TextArea();
+        log = new ConsoleArea();
         log.setWrapText(true);
         log.setEditable(false);
         log.setMaxHeight(0.6 * SCREENHEIGHT);
@@ -371,11 +413,16 @@ public class ACODynamic extends Application implements Serializable {
         algorithmChoiceBox.getItems().addAll("AS", "MMAS");
         algorithmChoiceBox.setValue("AS");
         
+        // Simulation speed
+        speedChoiceBox = new ChoiceBox();
+        speedChoiceBox.getItems().addAll("Real time", "Fast", "Unthrottled");
+        speedChoiceBox.setValue("Real time");
+        
         // Populate right side containers
         tier1HBox.getChildren().addAll(generateNodes, generateEdges);
         tier2Hbox.getChildren().addAll(startStop, reset);
         tier3HBox.getChildren().addAll(mouseModeLabel, mouseModeChoiceBox);
-        tier4HBox.getChildren().addAll(algorithmLabel, algorithmChoiceBox);
+        tier4HBox.getChildren().addAll(algorithmLabel, algorithmChoiceBox, speedLabel, speedChoiceBox);
         tier5HBox.getChildren().addAll(runtimeLabel, runtimeValueLabel);
         tier6HBox.getChildren().addAll(bestRouteCostLabel, bestRouteCostValueLabel);
         tier7HBox.getChildren().add(automatedSimulation);
@@ -396,32 +443,23 @@ public class ACODynamic extends Application implements Serializable {
             }
             
             // Remove all nodes, edges, ants
-            simulationArea.getChildren().removeAll(nodeList);
-            simulationArea.getChildren().removeAll(edgeList);
+            removeNodeAndEdgeViews();
             simulationArea.getChildren().removeAll(antList);
+            antViewPool.addAll(antList);
             
             // Reset lists
-            nodeList = new ArrayList();
-            edgeList = new ArrayList();
-            antList = new ArrayList();
-            bestRouteEdgeList = new ArrayList();
+            nodeHits.clear();
+            edgeHits.clear();
+            selectedNode = null;
+            antList.clear();
             bestRouteCostValueLabel.setText("----");
             
-            // Reset source + destination
-            sourceNode = null;
-            destNode = null;
+            // Reset nodes, edges, source + destination and ID counters
+            graph.clear();
             
-            // Reset ID counters
-            uniqueNodeID = 0;
-            uniqueEdgeID = 0;
-            uniqueAntID = 0;
-            
-            // Reset shortest route
-            shortestRoute = Double.MAX_VALUE;
-            
-            // Reset runtime
-            simulationRuntime = 0;
-            runtimeValueLabel.setText(String.valueOf(simulationRuntime)+"s");
+            // Reset ants, best route and runtime
+            simulation.reset();
+            runtimeValueLabel.setText(String.valueOf(simulation.getRuntime())+"s");
             
             // Clear the log
             log.clear();
@@ -437,7 +475,7 @@ public class ACODynamic extends Application implements Serializable {
             FileChooser fc = new FileChooser();
             fc.setTitle("Open Environment");
             fc.setInitialDirectory(new File(System.getProperty("user.dir")));
-            fc.getExtensionFilters().add(new FileChooser.ExtensionFilter(".txt", "*.txt"));
+            fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("Environment", "*.aco", "*.txt"));
             File fileChosen = fc.showOpenDialog(window);
             
             // return if no file chosen
@@ -456,77 +494,143 @@ public class ACODynamic extends Application implements Serializable {
             newFile.fire();
             
             try {
-                FileInputStream fis = new FileInputStream(fileChosen);
-                ObjectInputStream ois = new ObjectInputStream(fis);
+                if (EnvironmentFile.isEnvironmentFile(fileChosen.toPath())) {
+                    // Binary environment, scale x and y positions for this screen size
+                    EnvironmentFile file = EnvironmentFile.read(fileChosen.toPath());
+                    checkViewLimit(file.getNodeCount(), file.getEdgeCount());
+                    file.addTo(graph, SCREENWIDTH / file.getScreenWidth(), SCREENHEIGHT / file.getScreenHeight());
+                    for (GraphNode n : graph.getNodes()) {
+                        showNode(n);
+                    }
+                    for (GraphEdge edge : graph.getEdges()) {
+                        showEdge(edge);
+                    }
+                    
+                    log.appendText("Environment loaded from file: " + fileChosen.getAbsolutePath() + "\n");
+                } else {
+                    // Older environment written with an ObjectOutputStream
+                    FileInputStream fis = new FileInputStream(fileChosen);
+                    ObjectInputStream ois = new ObjectInputStream(fis);
                 
-                // Read screen dimensions used when creating this environment
-                double inputScreenWidth = ois.readDouble();
-                double inputScreenHeight = ois.readDouble();
-                // Read node and edge lists
-                List<Node> tempNodeList = (List<Node>) ois.readObject();
-                List<Edge> tempEdgeList = (List<Edge>) ois.readObject();
+                    // Read screen dimensions used when creating this environment
+                    double inputScreenWidth = ois.readDouble();
+                    double inputScreenHeight = ois.readDouble();
+                    // Read node and edge lists (older files hold Node/Edge views)
+                    List<?> tempNodeList = (List<?>) ois.readObject();
+                    List<?> tempEdgeList = (List<?>) ois.readObject();
                 
-                // Close streams
-                fis.close();
-                ois.close();
+                    // Close streams
+                    fis.close();
+                    ois.close();
                 
-                // Check for content
-                if (tempNodeList != null) {
-                    // Construct nodes from tempNodeList
-                    for (Node n : tempNodeList) {
-                        // Scale x and y positions for this screen size
-                        n.setCenterX(Math.round((SCREENWIDTH/inputScreenWidth) * n.getCenterX()));
-                        n.setCenterY(Math.round((SCREENHEIGHT/inputScreenHeight) * n.getCenterY()));
+                    // Check for content
+                    if (tempNodeList != null) {
+                        // Construct nodes from tempNodeList
+                        for (Object o : tempNodeList) {
+                            GraphNode n = (o instanceof Node) ? ((Node) o).getModel() : (GraphNode) o;
+                            // Scale x and y positions for this screen size
+                            n.setX(Math.round((SCREENWIDTH/inputScreenWidth) * n.getX()));
+                            n.setY(Math.round((SCREENHEIGHT/inputScreenHeight) * n.getY()));
                         
-                        simulationArea.getChildren().add(n);
-                        nodeList.add(n);
-                        
-                        if (n.isSource()) {
-                            sourceNode = n;
-                        } else if (n.isDestination()) {
-                            destNode = n;
+                            graph.addLoadedNode(n);
+                            showNode(n);
                         }
-                    }
-                    
-                    // Construct edges from tempEdgeList
-                    for (Edge edge : tempEdgeList) {
-                        // Scale x and y positions for this screen size
-                        edge.setStartX(Math.round((SCREENWIDTH/inputScreenWidth) * edge.getStartX()));
-                        edge.setStartY(Math.round((SCREENHEIGHT/inputScreenHeight) * edge.getStartY()));
-                        edge.setEndX(Math.round((SCREENWIDTH/inputScreenWidth) * edge.getEndX()));
-                        edge.setEndY(Math.round((SCREENHEIGHT/inputScreenHeight) * edge.getEndY()));
-                        
-                        simulationArea.getChildren().add(edge);
-                        edgeList.add(edge);
-                    }
                     
-                    // Make sure the node ID counter is correct
-                    if (!tempNodeList.isEmpty()) {
-                        
-                        uniqueNodeID = tempNodeList.get(tempNodeList.size() -1).getNodeID() + 1;
-                        
-                        if (!tempEdgeList.isEmpty()) {
-                            uniqueEdgeID = tempEdgeList.get(tempEdgeList.size() - 1).getEdgeID() + 1;
+                        // Construct edges from tempEdgeList
+                        for (Object o : tempEdgeList) {
+                            GraphEdge edge = (o instanceof Edge) ? ((Edge) o).getModel() : (GraphEdge) o;
+                            if (graph.addLoadedEdge(edge)) {
+                                showEdge(edge);
+                            }
                         }
-                    }
                     
 
-                    log.appendText("Environment loaded from file: " + fileChosen.getAbsolutePath() + "\n");
-                } else {
-                    log.appendText("[E]: File chosen is empty!\n");
+                        log.appendText("Environment loaded from file: " + fileChosen.getAbsolutePath() + "\n");
+                    } else {
+                        log.appendText("[E]: File chosen is empty!\n");
+                    }
                 }
-                
             } catch (FileNotFoundException fnfe) {
-                log.appendText("[E]: FileNotFoundException: Choose a valid .txt file \n");
+                log.appendText("[E]: FileNotFoundException: Choose a valid environment file \n");
             } catch (IOException ioe) {
-                log.appendText("[E]: IOException: Choose a valid .txt file \n");
+                log.appendText("[E]: IOException: Choose a valid environment file \n");
             } catch (ClassNotFoundException cnfe) {
-                log.appendText("[E]: ClassNotFoundException: Choose a valid .txt file \n");
+                log.appendText("[E]: ClassNotFoundException: Choose a valid environment file \n");
             }
             
             e.consume();
         });
            
+        importNetwork.setOnAction(e -> {
+            // Stop sim if running
+            startStop.setText("Start");
+            simulationLoop.stop();
+            
+            FileChooser fc = new FileChooser();
+            fc.setTitle("Import Network (choose .gr and .co, or node and edge .csv)");
+            fc.setInitialDirectory(new File(System.getProperty("user.dir")));
+            fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("DIMACS", "*.gr", "*.co"));
+            fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV", "*.csv"));
+            List<File> filesChosen = fc.showOpenMultipleDialog(window);
+            
+            // return if no file chosen
+            if (filesChosen == null) {
+                return;
+            }
+            
+            // Pair up the files by extension, or by name for CSV
+            File arcs = null;
+            File coordinates = null;
+            File nodesCsv = null;
+            File edgesCsv = null;
+            for (File f : filesChosen) {
+                String name = f.getName().toLowerCase();
+                if (name.endsWith(".gr")) {
+                    arcs = f;
+                } else if (name.endsWith(".co")) {
+                    coordinates = f;
+                } else if (name.endsWith(".csv") && name.contains("node")) {
+                    nodesCsv = f;
+                } else if (name.endsWith(".csv")) {
+                    edgesCsv = f;
+                }
+            }
+            
+            try {
+                EnvironmentFile network;
+                if (arcs != null && coordinates != null) {
+                    network = NetworkImporter.importDimacs(arcs.toPath(), coordinates.toPath());
+                } else if (nodesCsv != null && edgesCsv != null) {
+                    network = NetworkImporter.importCsv(nodesCsv.toPath(), edgesCsv.toPath());
+                } else {
+                    log.appendText("[E]: Choose a .gr and .co file, or a node .csv and an edge .csv file!\n");
+                    e.consume();
+                    return;
+                }
+                
+                // Reset the environment before populating
+                newFile.fire();
+                
+                // Fit the network in the simulation area, keeping its shape
+                double scale = Math.min((SCREENWIDTH * SIMULATIONMULTIPLIER) / network.getScreenWidth(),
+                        (SCREENHEIGHT - MENUBARHEIGHT) / network.getScreenHeight());
+                checkViewLimit(network.getNodeCount(), network.getEdgeCount());
+                network.addTo(graph, scale, scale);
+                for (GraphNode n : graph.getNodes()) {
+                    showNode(n);
+                }
+                for (GraphEdge edge : graph.getEdges()) {
+                    showEdge(edge);
+                }
+                
+                log.appendText("Network imported: " + network.getNodeCount() + " nodes, " + network.getEdgeCount() + " edges\n");
+            } catch (IOException ioe) {
+                log.appendText("[E]: IOException: " + ioe.getMessage() + "\n");
+            }
+            
+            e.consume();
+        });
+        
         saveEnvironment.setOnAction(e -> {
             // Stop sim if running
             startStop.setText("Start");
@@ -535,7 +639,8 @@ public class ACODynamic extends Application implements Serializable {
             FileChooser fc = new FileChooser();
             fc.setTitle("Save Environment");
             fc.setInitialDirectory(new File(System.getProperty("user.dir")));
-            fc.getExtensionFilters().add(new FileChooser.ExtensionFilter(".txt", "*.txt"));
+            fc.getExtensionFilters().add(new FileChooser.ExtensionFilter(".aco", "*.aco"));
+            fc.getExtensionFilters().add(new FileChooser.ExtensionFilter(".txt (serialized)", "*.txt"));
             File fileChosen = fc.showSaveDialog(window);
             
             // return if no file chosen
@@ -561,26 +666,32 @@ public class ACODynamic extends Application implements Serializable {
             }
                 
             try {                
-                FileOutputStream fos = new FileOutputStream(fileChosen);
-                ObjectOutputStream oos = new ObjectOutputStream(fos);
-                
-                // Write screen dimensions so x and y positions can be scaled
-                oos.writeDouble(SCREENWIDTH);
-                oos.writeDouble(SCREENHEIGHT);
-                // Write node and edge list
-                oos.writeObject(nodeList);
-                oos.writeObject(edgeList);
-                
-                // Close streams
-                fos.close();
-                oos.close();
+                // Write node and edge list with the current pheromone
+                simulation.storePheromone();
+                if (fileChosen.getName().toLowerCase().endsWith(".txt")) {
+                    // Serialized GraphNode/GraphEdge lists, only read by this version
+                    FileOutputStream fos = new FileOutputStream(fileChosen);
+                    ObjectOutputStream oos = new ObjectOutputStream(fos);
+
+                    // Write screen dimensions so x and y positions can be scaled
+                    oos.writeDouble(SCREENWIDTH);
+                    oos.writeDouble(SCREENHEIGHT);
+                    oos.writeObject(new ArrayList<>(graph.getNodes()));
+                    oos.writeObject(new ArrayList<>(graph.getEdges()));
+
+                    // Close streams
+                    fos.close();
+                    oos.close();
+                } else {
+                    EnvironmentFile.fromGraph(graph, SCREENWIDTH, SCREENHEIGHT).write(fileChosen.toPath());
+                }
                 
                 log.appendText("Environment saved to file: " + fileChosen.getAbsolutePath() + "\n");
                 
             } catch (FileNotFoundException fnfe) {
-                log.appendText("[E]: FileNotFoundException: Choose a valid .txt file \n");
+                log.appendText("[E]: FileNotFoundException: Choose a valid environment file \n");
             } catch (IOException ioe) {
-                log.appendText("[E]: IOException: Choose a valid .txt file \n");
+                log.appendText("[E]: IOException: Choose a valid environment file \n");
             }
             
             e.consume();
@@ -594,6 +705,29 @@ public class ACODynamic extends Application implements Serializable {
             window.close();
         });
                 
+        eventDriven.setOnAction(e -> {
+            // Ants jump between node arrivals instead of moving every step
+            runner.runExclusive(() -> simulation.setEventDriven(eventDriven.isSelected()));
+            log.appendText("Event driven ants: " + (eventDriven.isSelected() ? "on" : "off") + "\n");
+        });
+        
+        canvasRendering.setOnAction(e -> {
+            if (!canvasRendering.isSelected() && graph.getNodes().size() + graph.getEdges().size() > MAXVIEWS) {
+                canvasRendering.setSelected(true);
+                log.appendText("[E]: Too many nodes and edges to draw without canvas rendering!\n");
+                return;
+            }
+            // Draw nodes, edges and ants on one canvas instead of a view for each
+            setCanvasRendering(canvasRendering.isSelected());
+            log.appendText("Canvas rendering: " + (canvasRendering.isSelected() ? "on" : "off") + "\n");
+        });
+        
+        lazyEvaporation.setOnAction(e -> {
+            // Only evaporate edges when the ants next use them
+            runner.runExclusive(() -> simulation.setLazyEvaporation(lazyEvaporation.isSelected()));
+            log.appendText("Lazy evaporation: " + (lazyEvaporation.isSelected() ? "on" : "off") + "\n");
+        });
+        
         settings.setOnAction(e -> {
             startStop.setText("Start");
             simulationLoop.stop();
@@ -647,84 +781,49 @@ public class ACODynamic extends Application implements Serializable {
     }
     
     private void setupButtonHandlers() {
-        generateNodes.setOnAction(e -> {
-            if (nodeList.size() != MAXNODES) {
-                while (nodeList.size() < MAXNODES) {
-                    addRandomNode();
+        generateNodes.setOnAction(e -> runner.runExclusive(() -> {
+            if (graph.getNodes().size() < MAXNODES) {
+                if (addRandomNodes(MAXNODES - graph.getNodes().size())) {
+                    log.appendText("Random nodes added!\n");
                 }
-                log.appendText("Random nodes added!\n");
             } else {
                 log.appendText("[E]: Node limit reached!\n");
             }
-        });
+        }));
         
-        generateEdges.setOnAction(e -> { 
-            // For all nodes
-            Iterator<Node> nodeIter = nodeList.iterator();
-            while (nodeIter.hasNext()) {
-                Node element = nodeIter.next();
-                
-                // List to hold the closest 3 valid nodes
-                List<Node> closestNodeList = new ArrayList<>(2);
-                
-                // If the element does not already have MAXCONNECTIONS
-                if (element.getConnectionsCount() != MAXCONNECTIONS) {
-                    // Create edges to the 3 closest nodes which have less than MAXCONNECTIONS
-                    for (int i = 0; i < 3; i++) {
-                        double shortest = 9999;
-                        for (Node n: nodeList) {
-                            // If n is not itself & n is not already on the closestNodeList & n has not got MAXCONNECTIONS
-                            if (!element.equals(n)  && !closestNodeList.contains(n) && n.getConnectionsCount() != MAXCONNECTIONS) {
-                                if (getEuclideanDistance(element, n.getX(), n.getY()) < shortest) {
-                                    // New closest node for this round
-                                    shortest = getEuclideanDistance(element, n.getX(), n.getY());
-                                    // Remove the previous closest node before adding, if it exists
-                                    if (closestNodeList.size() == i + 1) {
-                                        closestNodeList.remove(i);
-                                        closestNodeList.add(n);
-                                    } else {
-                                        closestNodeList.add(n);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    // Create the edges between the element and the nodes in the list
-                    for (Node closeNode: closestNodeList) {
-                        addEdge(element, closeNode, false);
-                    }
-                }
+        generateEdges.setOnAction(e -> runner.runExclusive(() -> {
+            // Connect every node to its closest nodes
+            for (GraphEdge edge : graph.generateClosestEdges()) {
+                showEdge(edge);
+                log.appendText(getNewEdgeString(edge));
             }
            
             log.appendText("Closest edges added!\n");
             e.consume();
-        });
+        }));
         
         startStop.setOnAction(e -> { 
-            // Check setup is ok before starting simulation
-            if (getSourceNode() != null && getDestinationNode() != null) {
+            if (startStop.getText().equals("Stop")) {
+                // Stopping is always allowed, e.g. after the source is removed
+                startStop.setText("Start");
+                log.appendText("Simulation stopped!\n");
+                simulationLoop.stop();
+            } else if (getSourceNode() != null && getDestinationNode() != null) {
+                // Check setup is ok before starting simulation
                 
                 // Check there are edges for ants to traverse
-                if (edgeList.isEmpty()) {
+                if (graph.getEdges().isEmpty()) {
                     log.appendText("[E]: Ants requires edges to walk down!\n");
-                } else if (sourceNode.getConnectedEdges().isEmpty() || destNode.getConnectedEdges().isEmpty()) {
+                } else if (!simulation.isRunnable()) {
                     log.appendText("[E]: Source and/or destination node has no connected edges!\n");
                 } else {
-                    if (startStop.getText().equals("Start")) {
-                        startStop.setText("Stop");
-                        log.appendText("Simulation started!\n");
-                        
-                        // Spawn ants
-                        while (antList.size() < MAXANTS) {
-                            spawnAnt();
-                        }
+                    startStop.setText("Stop");
+                    log.appendText("Simulation started!\n");
+                    
+                    // Spawn ants
+                    spawnAnts();
 
-                        simulationLoop.start();
-                    } else {
-                        startStop.setText("Start");
-                        log.appendText("Simulation stopped!\n");
-                        simulationLoop.stop();
-                    }
+                    simulationLoop.start();
                 }
             } else {
                 log.appendText("[E]: Set source and destination node before starting simulation!\n");
@@ -740,39 +839,24 @@ public class ACODynamic extends Application implements Serializable {
                 simulationLoop.stop();
             }
             
-            // Remove all nodes, edges, ants
+            // Remove all ants, keeping their views for reuse
             simulationArea.getChildren().removeAll(antList);
+            antViewPool.addAll(antList);
             
             // Reset lists
-            antList = new ArrayList();
+            antList.clear();
             
             // Remove highlighting from all edges
-            if (!bestRouteEdgeList.isEmpty()) {
-                for (Edge edge : edgeList) {
-                    edge.setStroke(Color.BLACK);
-                    edge.setStrokeWidth(1.0);
-                }
-            }
-            
-            // Remove pheromone & traffic
-            for (Edge edge : edgeList) {
-                edge.setPheromone(1.0, false);
-                edge.setTraffic(1.0);
+            if (simulation.hasBestRoute()) {
+                removeBestRouteHighlight();
             }
             
-            // Reset best route details
-            bestRouteEdgeList = new ArrayList();
+            // Remove ants, pheromone, traffic and best route details
+            simulation.reset();
             bestRouteCostValueLabel.setText("----");
             
-            // Reset ID counters
-            uniqueAntID = 0;
-            
-            // Reset shortest route
-            shortestRoute = Double.MAX_VALUE;
-            
             // Reset runtime
-            simulationRuntime = 0;
-            runtimeValueLabel.setText(String.valueOf(simulationRuntime)+"s");
+            runtimeValueLabel.setText(String.valueOf(simulation.getRuntime())+"s");
             
             // Clear log
             log.clear();
@@ -787,17 +871,22 @@ public class ACODynamic extends Application implements Serializable {
             switch(algorithmChoiceBox.getValue()) {
                 case "AS":
                     reset.fire(); // Reset the simulation
-                    algorithm = ALGORITHM.AS;
+                    simulation.setAlgorithm(Algorithm.AS);
                     log.appendText("Algorithm: " + algorithmChoiceBox.getValue() + "\n");
                     break;
                 case "MMAS":
                     reset.fire(); // Reset the simulation
-                    algorithm = ALGORITHM.MMAS; 
+                    simulation.setAlgorithm(Algorithm.MMAS);
                     log.appendText("Algorithm: " + algorithmChoiceBox.getValue() + "\n");
                     break;
             }
         });
         
+        speedChoiceBox.setOnAction(e -> {
+            runner.setStepRate(getStepRate());
+            log.appendText("Speed: " + speedChoiceBox.getValue() + "\n");
+        });
+        
         mouseModeChoiceBox.setOnAction(e -> { 
             switch(mouseModeChoiceBox.getValue()) {
                 case "Normal":
@@ -832,8 +921,10 @@ public class ACODynamic extends Application implements Serializable {
      * Sets actions to be taken for scene related events
      */
     private void setupSceneEventHandlers() {
+        // Both handlers may change the graph, so the runner must not be stepping
+        
         // KeyReleased events
-        scene.setOnKeyReleased((KeyEvent ke) -> {
+        scene.setOnKeyReleased((KeyEvent ke) -> runner.runExclusive(() -> {
             if (ke.getCode() == KeyCode.ESCAPE) {
                 // Close the application
                 ke.consume();
@@ -845,19 +936,15 @@ public class ACODynamic extends Application implements Serializable {
                 if (getHighlightedNode() != null) {
                     // Switch if this node is the source
                     if (getHighlightedNode().isSource()) {
-                        getHighlightedNode().setSource(false);
-                        sourceNode = null;
+                        graph.setSourceNode(null);
                         log.appendText("Node " + getHighlightedNode().getNodeID() + " removed as source!\n");
                     } else if (getHighlightedNode().isDestination()) {
                         log.appendText("[E]: Node is already set as destination!\n");
                     } else {
-                        // Remove the current source if it exists
-                        if (getSourceNode() != null) {
-                            getSourceNode().setSource(false);
-                            sourceNode = null;
-                        }
-                        getHighlightedNode().setSource(true);
-                        sourceNode = getHighlightedNode();
+                        // Replaces the current source if it exists
+                        GraphNode oldSource = getSourceNode();
+                        graph.setSourceNode(getHighlightedNode());
+                        refreshNodeView(oldSource);
                         log.appendText("Node " + getHighlightedNode().getNodeID() + " set as source!\n");
                     }
                     
@@ -869,19 +956,15 @@ public class ACODynamic extends Application implements Serializable {
                 if (getHighlightedNode() != null) {
                     // Switch if this node is the destinaton
                     if (getHighlightedNode().isDestination()) {
-                        getHighlightedNode().setDestination(false);
-                        destNode = null;
+                        graph.setDestinationNode(null);
                         log.appendText("Node " + getHighlightedNode().getNodeID() + " removed as destination!\n");
                     } else if (getHighlightedNode().isSource()) {
                         log.appendText("[E]: Node is already the source!\n");
                     } else {
-                        // Remove the currest destination if it exists
-                        if (getDestinationNode() != null) {
-                            getDestinationNode().setDestination(false);
-                            destNode = null;
-                        }
-                        getHighlightedNode().setDestination(true);
-                        destNode = getHighlightedNode();
+                        // Replaces the current destination if it exists
+                        GraphNode oldDest = getDestinationNode();
+                        graph.setDestinationNode(getHighlightedNode());
+                        refreshNodeView(oldDest);
                         log.appendText("Node " + getHighlightedNode().getNodeID() + " set as destination!\n");
                     }
                     
@@ -895,81 +978,76 @@ public class ACODynamic extends Application implements Serializable {
                     a.setVisible(!a.isVisible());
                 }
             }
-        });
+        }));
         
         // MousePressed events
-        scene.setOnMousePressed((MouseEvent me) -> {
-            boolean existingNodeSelected = false;
+        scene.setOnMousePressed((MouseEvent me) -> runner.runExclusive(() -> {
+            // Position within the simulation area, nodes and edges under it are found from the spatial hashes
+            double x = me.getX();
+            double y = me.getY() - MENUBARHEIGHT;
+            boolean inArea = me.getX() < (SCREENWIDTH * SIMULATIONMULTIPLIER) && me.getY() > MENUBARHEIGHT;
+            GraphNode clickedNode = inArea ? findNodeAt(x, y) : null;
+            GraphEdge clickedEdge = inArea && clickedNode == null ? findEdgeAt(x, y) : null;
+            
             // Traffic mode disables other actions so traffic can be added or removed
             if (trafficMode) {
-                // Find the edge and add traffic
-                for (Edge e: edgeList) {
-                    if (me.getTarget().equals(e)) {
-                        // Add or remove traffic
-                        switch (mouseModeChoiceBox.getValue()) {
-                            case "Add Traffic":
-                                e.addTraffic(1.0);
-                                log.appendText("Traffic added to edge " + e.getEdgeID() + ". Value: " + e.getTraffic() + "\n");
-                                simLogger.log(Level.INFO, "Runtime:{0}s - Traffic added to edge {1}. Value: {2}", new Object[]{simulationRuntime, e.getEdgeID(), e.getTraffic()});
-                                break;
-                            case "Remove Traffic":
-                                e.reduceTraffic(1.0);
-                                log.appendText("Traffic reduced on edge " + e.getEdgeID() + ". Value: " + e.getTraffic() + "\n");
-                                simLogger.log(Level.INFO, "Runtime:{0}s - Traffic removed from edge {1}. Value: {2}", new Object[]{simulationRuntime, e.getEdgeID(), e.getTraffic()});
-                                break;
-                        }
+                // Add traffic to the edge
+                if (clickedEdge != null) {
+                    GraphEdge e = clickedEdge;
+                    // Add or remove traffic
+                    switch (mouseModeChoiceBox.getValue()) {
+                        case "Add Traffic":
+                            e.addTraffic(1.0);
+                            simulation.updateTraffic(e);
+                            log.appendText("Traffic added to edge " + e.getEdgeID() + ". Value: " + e.getTraffic() + "\n");
+                            simLogger.log(Level.INFO, "Runtime:{0}s - Traffic added to edge {1}. Value: {2}", new Object[]{simulation.getRuntime(), e.getEdgeID(), e.getTraffic()});
+                            break;
+                        case "Remove Traffic":
+                            e.reduceTraffic(1.0);
+                            simulation.updateTraffic(e);
+                            log.appendText("Traffic reduced on edge " + e.getEdgeID() + ". Value: " + e.getTraffic() + "\n");
+                            simLogger.log(Level.INFO, "Runtime:{0}s - Traffic removed from edge {1}. Value: {2}", new Object[]{simulation.getRuntime(), e.getEdgeID(), e.getTraffic()});
+                            break;
                     }
                 }
             } else if (me.isPrimaryButtonDown() && me.isControlDown()) {
-                /**
-                 * CTRL is down so in delete mode:
-                 * Iterate through all nodes/edges and if a match is found remove the 
-                 * node/edge
-                 */
-                removeNodeIfFound(me);
-                removeEdgeIfFound(me);
+                // CTRL is down so in delete mode: remove the node/edge clicked
+                if (clickedNode != null) {
+                    removeNode(clickedNode);
+                } else if (clickedEdge != null) {
+                    removeEdge(clickedEdge);
+                }
                 removeHighlight();
                 
             } else if (me.isPrimaryButtonDown()) {
-                Iterator<Node> nodeIter = nodeList.iterator();
-                while (nodeIter.hasNext()) {
-                    Node element = nodeIter.next();
-                    if (element.equals(me.getTarget())) {
-                        // An existing node has been selected
-                        existingNodeSelected = true;
-                        
-                        
-                        Node highlightedElement = getHighlightedNode();
-                        if (!element.equals(highlightedElement)) {
-                            if (getHighlightedNode() != null) {
-                                // Create an edge between the highlighted node and this node
-                                addEdge(highlightedElement, element, true);
+                if (clickedNode != null) {
+                    // An existing node has been selected
+                    GraphNode highlightedElement = getHighlightedNode();
+                    if (!clickedNode.equals(highlightedElement)) {
+                        if (highlightedElement != null) {
+                            // Create an edge between the highlighted node and this node
+                            addEdge(highlightedElement, clickedNode, true);
 
-                                // Remove highlighting
-                                removeHighlight();
-                            } else {
-                                // Highlight the selected node
-                                element.setHighlighted(true);
-                            }
-                        } else {
+                            // Remove highlighting
                             removeHighlight();
+                        } else {
+                            // Highlight the selected node
+                            highlightNode(clickedNode);
                         }
-                    }
-                }
-                
-                if (!existingNodeSelected) {
-                    if (getHighlightedNode() != null) {
-                        // Clicked to disable
-                        removeHighlight();
                     } else {
-                        addNodeMouseClick(me);
+                        removeHighlight();
                     }
-                }                
+                } else if (getHighlightedNode() != null) {
+                    // Clicked to disable
+                    removeHighlight();
+                } else {
+                    addNodeMouseClick(me);
+                }
             } else if (me.isSecondaryButtonDown()) {
                 // Add a random node
                 addRandomNode();
             }
-        });
+        }));
     }
     
     /**
@@ -977,18 +1055,16 @@ public class ACODynamic extends Application implements Serializable {
      * and writes a begin log info message
      */
     private void setupLogging() {
+        eventLog = new EventLog(text -> Platform.runLater(() -> log.appendText(text)));
         try {
-            // Create log file in user.dir, max size 50kb, 10 versions
-            fileHandler = new FileHandler(System.getProperty("user.dir")+"\\simulationLog.log", 50000, 2);
-            simLogger.addHandler(fileHandler);
-            
-            // Format is too long by default so just use the standard
-            SimpleFormatter simpleFormatter = new SimpleFormatter();
-            fileHandler.setFormatter(simpleFormatter);
-            
+            // Create log file in user.dir, max size 50kb, the previous one kept as .1
+            eventLog.setFile(Paths.get(System.getProperty("user.dir"), "simulationLog.log"), 50000);
+            simLogger.addHandler(eventLog.getFileHandler());
         } catch (IOException | SecurityException ioe) {
             log.appendText("[E]: Error initialising file handler!\n");
         }
+        followedBestRoute = eventLog.counter("%d ants followed best route in last second\n");
+        eventLog.start();
 
         // Log all
         simLogger.setLevel(Level.ALL);
@@ -998,6 +1074,35 @@ public class ACODynamic extends Application implements Serializable {
         simLogger.info("--- BEGIN LOG ---");
     }
     
+    /**
+     * Sets the actions to be taken when the simulation reports an event
+     */
+    private void setupSimulationListener() {
+        simulation.setListener(new SimulationListener() {
+            @Override
+            public void newBestRoute(int[] route, double cost, String edgeIDs) {
+                // Called on the runner's worker thread, the views are changed on the FX thread
+                Platform.runLater(() -> highlightBestRoute(route));
+                eventLog.console("New best route: " + cost + "!\n");
+                
+                // Write to file log
+                simLogger.log(Level.INFO, "Runtime:{0}s - New best route: {1}! Edges[{2}]", new Object[]{simulation.getRuntime(), cost, edgeIDs});
+            }
+
+            @Override
+            public void followingBestRoute() {
+                // Nearly every ant once the colony has converged, so only counted
+                followedBestRoute.increment();
+            }
+
+            @Override
+            public void pheromoneRefreshed(int stagnantSeconds) {
+                eventLog.console("\tStagnant for " + stagnantSeconds + " seconds, refresing pheromone!\n");
+                simLogger.log(Level.INFO, "Runtime:{0}s - Stagnant for {1} seconds, refreshing pheromone!", new Object[]{simulation.getRuntime(), stagnantSeconds});
+            }
+        });
+    }
+    
     /**
      * Adds a node at the location where a left click took place provided the
      * location is within the simulation area
@@ -1005,15 +1110,13 @@ public class ACODynamic extends Application implements Serializable {
      */
     private void addNodeMouseClick(MouseEvent me) {
         // Must be within the simulation area
-        if (nodeList.size() < MAXNODES) {
+        if (graph.getNodes().size() < MAXNODES) {
             if (me.getX() < (SCREENWIDTH * SIMULATIONMULTIPLIER) && me.getY() > MENUBARHEIGHT) {
                 // Create a new node and add to the simulation area
-                Node n = new Node(uniqueNodeID, me.getX(), me.getY() - MENUBARHEIGHT);
-                uniqueNodeID++;
-                simulationArea.getChildren().add(n);
+                GraphNode n = graph.addNode(me.getX(), me.getY() - MENUBARHEIGHT);
+                showNode(n);
                 
                 log.appendText(getNewNodeString(n));
-                nodeList.add(n);
             } else {
                 log.appendText("[E]: Invalid node location - must be within simulation area!\n");
             }
@@ -1026,98 +1129,234 @@ public class ACODynamic extends Application implements Serializable {
      * Randomly places a new node if the node limit has not been reached
      */
     private void addRandomNode() {
-        if (nodeList.size() < MAXNODES) {
-            double x, y;
-            // Get a random valid position           
-            do {
-                // Overlapping another node
-                x = getDoubleInRange((SCREENWIDTH * SIMULATIONMULTIPLIER));
-                y = getDoubleInRange(SCREENHEIGHT - MENUBARHEIGHT);
-            } while (!checkValidPosition(x, y));
-            
-            Node n = new Node(uniqueNodeID, Math.round(x), Math.round(y));
-            uniqueNodeID++;
-            simulationArea.getChildren().add(n);
-
-            log.appendText(getNewNodeString(n));
-            nodeList.add(n);
-            
+        if (graph.getNodes().size() < MAXNODES) {
+            addRandomNodes(1);
         } else {
             log.appendText("[E]: Node limit reached!\n");
+            removeHighlight();
+        }
+    }
+
+    /**
+     * Places new nodes at random positions within the simulation area, at
+     * least NODESPACING away from every other node
+     * @param count - number of nodes to add
+     * @return true if all of the nodes were added
+     */
+    private boolean addRandomNodes(int count) {
+        List<GraphNode> added = graph.addRandomNodes(count, SCREENWIDTH * SIMULATIONMULTIPLIER,
+                SCREENHEIGHT - MENUBARHEIGHT, NODESPACING, simulation.getGeneratorRandom());
+        for (GraphNode n : added) {
+            showNode(n);
+            log.appendText(getNewNodeString(n));
         }
-        
         removeHighlight();
+
+        if (added.size() < count) {
+            log.appendText("[E]: No free space for a new node!\n");
+            return false;
+        }
+        return true;
     }
     
     /**
-     * Iterates through all nodes and removes the node if a match is found with 
-     * the MouseEvent.target()
-     * @param me - MouseEvent
+     * Adds a node to hit testing and, unless canvas rendering is on, creates
+     * its view
+     * @param n - node to show
      */
-    private void removeNodeIfFound(MouseEvent me) {
-        Iterator<Node> nodeIter = nodeList.iterator();
-        while (nodeIter.hasNext()) {
-            Node element = nodeIter.next(); // Store the current element
-            if (element.equals(me.getTarget())) {
-                log.appendText("Node " + element.getNodeID() + " removed!\n");
-                
-                // Remove all the connected edges as well
-                Iterator<Edge> edgeIter = element.getConnectedEdges().iterator();
-                while (edgeIter.hasNext()) {
-                    Edge elementEdge = edgeIter.next();
-                    
-                    // Remove this edge from simulation area and the connected nodes lists
-                    log.appendText("Edge " + elementEdge.getEdgeID() + " removed!\n");
-                    
-                    // Find the node that isn't the one clicked and remove the node and edge connection
-                    for (Node n :elementEdge.getConnectedNodes()) {
-                        if (!n.equals(element)) {
-                            n.removeConnectedNode(element);
-                            n.removeConnectedEdge(elementEdge);
-                        }
-                    }
-                    
-                    simulationArea.getChildren().remove(elementEdge);
-                    edgeIter.remove(); // Removes from iterator and underlying collection
-                }
-                
-                simulationArea.getChildren().remove(element);
-                nodeIter.remove(); // Removes from the iterator and underlying collection
+    private void showNode(GraphNode n) {
+        nodeHits.addBox(n, n.getX() - NODEHITRADIUS, n.getY() - NODEHITRADIUS, n.getX() + NODEHITRADIUS, n.getY() + NODEHITRADIUS);
+        if (canvasRenderer == null) {
+            addNodeView(n);
+        }
+    }
+    
+    /**
+     * Removes a node from hit testing, and its view if it has one
+     * @param n - node to hide
+     */
+    private void hideNode(GraphNode n) {
+        nodeHits.removeBox(n, n.getX() - NODEHITRADIUS, n.getY() - NODEHITRADIUS, n.getX() + NODEHITRADIUS, n.getY() + NODEHITRADIUS);
+        Node view = nodeViews.remove(n);
+        if (view != null) {
+            simulationArea.getChildren().remove(view);
+        }
+    }
+    
+    /**
+     * Adds an edge to hit testing and, unless canvas rendering is on, creates
+     * its view
+     * @param e - edge to show
+     */
+    private void showEdge(GraphEdge e) {
+        edgeHits.addSegment(e, e.getStartX(), e.getStartY(), e.getEndX(), e.getEndY(), EDGEHITDISTANCE);
+        if (canvasRenderer == null) {
+            addEdgeView(e);
+        }
+    }
+    
+    /**
+     * Removes an edge from hit testing, and its view if it has one
+     * @param e - edge to hide
+     */
+    private void hideEdge(GraphEdge e) {
+        edgeHits.removeSegment(e, e.getStartX(), e.getStartY(), e.getEndX(), e.getEndY(), EDGEHITDISTANCE);
+        Edge view = edgeViews.remove(e.getEdgeID());
+        if (view != null) {
+            simulationArea.getChildren().remove(view);
+        }
+    }
+    
+    /**
+     * Creates the view of a node and adds it to the simulation area
+     * @param n - node to draw
+     */
+    private void addNodeView(GraphNode n) {
+        Node view = new Node(n);
+        view.setMouseTransparent(true);
+        view.setHighlighted(n.equals(selectedNode));
+        simulationArea.getChildren().add(view);
+        nodeViews.put(n, view);
+    }
+    
+    /**
+     * Creates the view of an edge and adds it to the simulation area
+     * @param e - edge to draw
+     */
+    private void addEdgeView(GraphEdge e) {
+        Edge view = new Edge(e);
+        view.setMouseTransparent(true);
+        simulationArea.getChildren().add(view);
+        edgeViews.put(e.getEdgeID(), view);
+    }
+    
+    /**
+     * Removes every node and edge view from the simulation area
+     */
+    private void removeNodeAndEdgeViews() {
+        // A set, as the list checks every child against the collection
+        Set<Shape> views = new HashSet<>(nodeViews.values());
+        views.addAll(edgeViews.values());
+        simulationArea.getChildren().removeAll(views);
+        nodeViews.clear();
+        edgeViews.clear();
+    }
+    
+    /**
+     * Redraws the view of a node after its role changes, if it has one
+     * @param n - node, or null
+     */
+    private void refreshNodeView(GraphNode n) {
+        Node view = nodeViews.get(n);
+        if (view != null) {
+            view.refresh();
+        }
+    }
+    
+    /**
+     * Finds the node drawn at a position
+     * @param x - x position in the simulation area
+     * @param y - y position in the simulation area
+     * @return the closest node covering the position, or null
+     */
+    private GraphNode findNodeAt(double x, double y) {
+        GraphNode found = null;
+        double closest = Double.MAX_VALUE;
+        for (GraphNode n : nodeHits.getCandidates(x, y)) {
+            double distance = n.distanceTo(x, y);
+            if (distance <= Node.radiusOf(n) && distance < closest) {
+                found = n;
+                closest = distance;
             }
         }
+        return found;
     }
     
     /**
-     * Searches through all nodes and returns the node which is highlighted,
-     * else returns a null node
-     * @return Node 
+     * Finds the edge drawn at a position
+     * @param x - x position in the simulation area
+     * @param y - y position in the simulation area
+     * @return the closest edge within EDGEHITDISTANCE of the position, or null
      */
-    private Node getHighlightedNode() {
-        Iterator<Node> nodeIter = nodeList.iterator();
-        while (nodeIter.hasNext()) {
-            Node element = nodeIter.next(); // Store the current element
-            if (element.isHighlighted()) {
-                return element;
+    private GraphEdge findEdgeAt(double x, double y) {
+        GraphEdge found = null;
+        double closest = EDGEHITDISTANCE;
+        for (GraphEdge e : edgeHits.getCandidates(x, y)) {
+            double distance = distanceToSegment(x, y, e.getStartX(), e.getStartY(), e.getEndX(), e.getEndY());
+            if (distance <= closest) {
+                found = e;
+                closest = distance;
             }
         }
-        // Return null if no highlighted node
-        return null;
+        return found;
     }
     
     /**
-     * Returns the source node pointer
-     * @return Node
+     * Gets the distance from a point to a line segment
+     * @param x - point x
+     * @param y - point y
+     * @param x1 - segment start x
+     * @param y1 - segment start y
+     * @param x2 - segment end x
+     * @param y2 - segment end y
+     * @return distance
      */
-    private Node getSourceNode() {
-        return sourceNode;
+    private static double distanceToSegment(double x, double y, double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double lengthSquared = (dx * dx) + (dy * dy);
+        // Fraction along the segment of the closest point
+        double t = lengthSquared == 0 ? 0 : ((x - x1) * dx + (y - y1) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double cx = x1 + t * dx - x;
+        double cy = y1 + t * dy - y;
+        return Math.sqrt((cx * cx) + (cy * cy));
     }
     
     /**
-     * Returns the destination node pointer
-     * @return Node 
+     * Removes a node and all of its connected edges
+     * @param element - node to remove
      */
-    private Node getDestinationNode() {
-        return destNode;
+    private void removeNode(GraphNode element) {
+        log.appendText("Node " + element.getNodeID() + " removed!\n");
+
+        // Remove the node and all the connected edges as well
+        List<GraphEdge> removedEdges = graph.removeNode(element);
+        for (GraphEdge elementEdge : removedEdges) {
+            log.appendText("Edge " + elementEdge.getEdgeID() + " removed!\n");
+            hideEdge(elementEdge);
+        }
+
+        // Reset best route if an edge within it is removed
+        if (simulation.clearBestRouteIfUsed(removedEdges)) {
+            removeBestRouteHighlight();
+        }
+
+        hideNode(element);
+    }
+    
+    /**
+     * Returns the node which is highlighted, else returns a null node
+     * @return GraphNode 
+     */
+    private GraphNode getHighlightedNode() {
+        return selectedNode;
+    }
+    
+    /**
+     * Returns the source node
+     * @return GraphNode
+     */
+    private GraphNode getSourceNode() {
+        return graph.getSourceNode();
+    }
+    
+    /**
+     * Returns the destination node
+     * @return GraphNode 
+     */
+    private GraphNode getDestinationNode() {
+        return graph.getDestinationNode();
     }
     
     /**
@@ -1128,74 +1367,54 @@ public class ACODynamic extends Application implements Serializable {
      * @param destination 
      * @param verbose
      */
-    private void addEdge(Node source, Node destination, boolean verbose) {
+    private void addEdge(GraphNode source, GraphNode destination, boolean verbose) {
         // Only add the edge if an edge is not already present between the two nodes
-        if (source.getConnectedNodes().contains(destination)) {
+        if (graph.isConnected(source, destination)) {
             if (verbose) {
                 log.appendText("[E]: Edge already present!\n");
             }
-        } else if (source.getConnectionsCount() == MAXCONNECTIONS 
-                || destination.getConnectionsCount() == MAXCONNECTIONS) {
+        } else if (!graph.hasFreeConnection(source) 
+                || !graph.hasFreeConnection(destination)) {
             if (verbose) {
                 log.appendText("[E]: Max connections reached for source or target node!\n");
             }
         } else {
             // Create a new edge and add to the simulation area
-            Edge e = new Edge(uniqueEdgeID, source.getX(), source.getY(), destination.getX(), destination.getY());
-            uniqueEdgeID++;
-
-            simulationArea.getChildren().add(e);
-            
-            // Mutally add the node connections
-            destination.addConnectedNode(source);
-            // Add the edge to both nodes + add nodes to edges
-            source.addConnectedEdge(e);
-            destination.addConnectedEdge(e);
-            // Add the connected nodes to the edge
-            e.addConnectedNode(source);
-            e.addConnectedNode(destination);
+            GraphEdge e = graph.addEdge(source, destination);
+            showEdge(e);
 
             log.appendText(getNewEdgeString(e));
-            edgeList.add(e);
         } 
     }
     
     /**
-     * Iterates through all edges and removes the edge if a match is found with 
-     * the MouseEvent.target()
-     * @param me - MouseEvent
+     * Removes an edge and the connection between its nodes
+     * @param element - edge to remove
      */
-    private void removeEdgeIfFound(MouseEvent me) {
-        // Find the edge clicked       
-        Iterator<Edge> edgeIter = edgeList.iterator();
-        while (edgeIter.hasNext()) {
-            Edge element = edgeIter.next();
-            if (element.equals(me.getTarget())) {
-                log.appendText("Edge " + element.getEdgeID() + " removed!\n");
-                
-                // Get the two nodes connected to this edge
-                Node nodeOne = element.getConnectedNodes().get(0);
-                Node nodeTwo = element.getConnectedNodes().get(1);
-                
-                // Remove the edge and each other from connections
-                nodeOne.removeConnectedNode(nodeTwo);
-                nodeOne.removeConnectedEdge(element);
-                nodeTwo.removeConnectedNode(nodeOne);
-                nodeTwo.removeConnectedEdge(element);
-                
-                simulationArea.getChildren().remove(element);
-                
-                // Reset best route if an edge within it is removed
-                if (bestRouteEdgeList.contains(element)) {
-                    for (Edge edge : edgeList) {
-                        edge.setStroke(Color.BLACK);
-                        edge.setStrokeWidth(1.0);
-                    }
-                    bestRouteEdgeList = new ArrayList();
-                }
-                
-                edgeIter.remove(); // Removes the edge from the list
-            }
+    private void removeEdge(GraphEdge element) {
+        log.appendText("Edge " + element.getEdgeID() + " removed!\n");
+
+        // Remove the edge and the connection between its nodes
+        graph.removeEdge(element);
+        hideEdge(element);
+
+        // Reset best route if an edge within it is removed
+        List<GraphEdge> removedEdges = new ArrayList<>(1);
+        removedEdges.add(element);
+        if (simulation.clearBestRouteIfUsed(removedEdges)) {
+            removeBestRouteHighlight();
+        }
+    }
+    
+    /**
+     * Highlights a node, which the canvas draws if it has no view
+     * @param n - node to highlight
+     */
+    private void highlightNode(GraphNode n) {
+        selectedNode = n;
+        Node view = nodeViews.get(n);
+        if (view != null) {
+            view.setHighlighted(true);
         }
     }
     
@@ -1203,8 +1422,12 @@ public class ACODynamic extends Application implements Serializable {
      * Removes highlighting from highlighted node
      */
     private void removeHighlight() {
-        if (getHighlightedNode() != null) {
-            getHighlightedNode().setHighlighted(false);
+        if (selectedNode != null) {
+            Node view = nodeViews.get(selectedNode);
+            if (view != null) {
+                view.setHighlighted(false);
+            }
+            selectedNode = null;
         }
     }
     
@@ -1213,7 +1436,7 @@ public class ACODynamic extends Application implements Serializable {
      * @param n
      * @return string
      */
-    private String getNewNodeString(Node n) {
+    private String getNewNodeString(GraphNode n) {
         StringBuilder sb = new StringBuilder("Node added! (ID: " + n.getNodeID());
         sb.append(" x: ").append(n.getX());
         sb.append(" y: ").append(n.getY());
@@ -1226,7 +1449,7 @@ public class ACODynamic extends Application implements Serializable {
      * @param e
      * @return string
      */
-    private String getNewEdgeString(Edge e) {
+    private String getNewEdgeString(GraphEdge e) {
         StringBuilder sb = new StringBuilder("Edge added! (ID: " + e.getEdgeID());
         sb.append(" (x: ").append(e.getStartX());
         sb.append(" y: ").append(e.getStartY());
@@ -1237,317 +1460,189 @@ public class ACODynamic extends Application implements Serializable {
     }
     
     /**
-     * Gets a random double up to a max value
-     * @param max
-     * @return double
+     * Adds ants to the simulation at the source node until MAXANTS is
+     * reached. Their views are added when they are next drawn.
      */
-    private Double getDoubleInRange(double max) {
-        Random r = new Random();
-        return r.nextDouble() * max;    
+    private void spawnAnts() {
+        simulation.spawnAnts();
     }
     
     /**
-     * Gets the Euclidean distance between two nodes using Pythagoras theorem
-     * @param n
-     * @return 
+     * Makes sure there is one view per ant, reusing old views first
+     * @param count - number of ants
      */
-    private double getEuclideanDistance(Node n, double x, double y) {
-        // h = sqrt(dx * dx + dy * dy)
-        return Math.sqrt(Math.pow(Math.abs((n.getX() - x)), 2) + Math.pow(Math.abs((n.getY() - y)), 2));
+    private void syncAntViews(int count) {
+        if (antList.size() > count) {
+            List<Ant> removed = antList.subList(count, antList.size());
+            simulationArea.getChildren().removeAll(removed);
+            antViewPool.addAll(removed);
+            removed.clear();
+        }
+        while (antList.size() < count) {
+            Ant a = antViewPool.isEmpty() ? new Ant() : antViewPool.remove(antViewPool.size() - 1);
+            simulationArea.getChildren().add(a);
+            antList.add(a);
+        }
     }
     
     /**
-     * Checks if the node is in a valid position (i.e. not on another node)
-     * @param x
-     * @param y
-     * @return true if valid
+     * Removes highlighting from the old best route if it exists, and then 
+     * highlights the new best route.
+     * @param newBestEdgeIDs 
      */
-    private Boolean checkValidPosition(double x, double y) {        
-        Iterator<Node> nodeIter = nodeList.iterator();
-        while (nodeIter.hasNext()) {
-            Node element = nodeIter.next(); // Store the current element
-            if (getEuclideanDistance(element, x, y) < 4.0) {
-                return false;                
+    private void highlightBestRoute(int[] newBestEdgeIDs) {
+        // Remove highlighting from all edges
+        removeBestRouteHighlight();
+
+        // Highlight edges
+        for (int id : newBestEdgeIDs) {
+            // The edge may have been removed since the route was found
+            Edge view = edgeViews.get(id);
+            if (view != null) {
+                view.setStroke(Color.BLUE);
+                view.setStrokeWidth(2.0);
             }
         }
-        return true;
     }
     
     /**
-     * Adds a single ant to the simulation area at the source node, if MAXANTS 
-     * is not yet reached.
+     * Removes highlighting from all edges
      */
-    private void spawnAnt() {
-        if (antList.size() < MAXANTS) {
-            Ant a = new Ant(uniqueAntID, getSourceNode());
-            simulationArea.getChildren().add(a);
-            antList.add(a);
-            uniqueAntID++;
+    private void removeBestRouteHighlight() {
+        for (Edge e : edgeViews.values()) {
+            e.setStroke(Color.BLACK);
+            e.setStrokeWidth(1.0);
         }
     }
     
     /**
-     * Calculates the cost of a route and sets best route if a new one is found.
-     * Also writes additional debugging information to the log.
-     * @param routeEdges
-     * @return cost
+     * Moves the ant views to the position of their ants
+     * @param snapshot - snapshot of the simulation to draw
      */
-    private Double calculateRouteCost(List<Edge> routeEdges) {
-        double tempCost = getRouteCost(routeEdges);
-        
-        String mes = "";
-        for (Edge e : routeEdges) {
-            mes += e.getEdgeID() + ",";
+    private void updateDrawAnts(SimulationSnapshot snapshot) {
+        if (canvasRenderer != null) {
+            // Drawn by the render loop
+            return;
         }
-        
-        if (bestRouteEdgeList.isEmpty()) {
-            // First solution so save it
-            shortestRoute = Math.round(tempCost);
-            
-            // Save and highlight the new best route
-            saveAndHighlightNewBestRoute(routeEdges);
-            
-            // Reset stagnation counter
-            stagnationCounter = 0;
-            log.appendText("New best route: " + shortestRoute + "!\n");
-            
-            // Write to file log
-            simLogger.log(Level.INFO, "Runtime:{0}s - New best route: {1}! Edges[{2}]", new Object[]{simulationRuntime, shortestRoute, mes.substring(0, mes.length() - 1)});
-            
-        } else if (Math.round(tempCost) < Math.round(getRouteCost(bestRouteEdgeList))) {
-            shortestRoute = Math.round(tempCost);
-            
-            // Save and highlight the new best route
-            saveAndHighlightNewBestRoute(routeEdges);
-            
-            // Reset stagnation counter
-            stagnationCounter = 0;
-
-            log.appendText("New best route: " + shortestRoute + "!\n");
-            
-            // Write to file log
-            simLogger.log(Level.INFO, "Runtime:{0}s - New best route: {1}! Edges[{2}]", new Object[]{simulationRuntime, shortestRoute, mes.substring(0, mes.length() - 1)});
-            
-        } else if (Math.round(tempCost) == Math.round(getRouteCost(bestRouteEdgeList))) {
-            log.appendText("Following best route\n");
+        syncAntViews(snapshot.getAntCount());
+        for (int i = 0; i < antList.size(); i++) {
+            antList.get(i).update(snapshot.getAntX(i), snapshot.getAntY(i), snapshot.isOutwardBound(i));
         }
-        
-        return tempCost;
-        
     }
     
     /**
-     * Returns the sum of the costs for each edge in the route
-     * @param route
-     * @return cost
+     * Switches between drawing nodes, edges and ants with a canvas and with a
+     * view for each. The views of nodes and edges are dropped while the canvas
+     * is used, and only made again when switching back.
+     * @param enabled - true to draw with a canvas
      */
-    private double getRouteCost(List<Edge> route) {
-        double cost = 0;
-        for (Edge e : route) {
-            cost += e.getCost();
+    private void setCanvasRendering(boolean enabled) {
+        if (enabled == (canvasRenderer != null)) {
+            return;
+        }
+        if (enabled) {
+            canvasRenderer = new CanvasRenderer(SCREENWIDTH * SIMULATIONMULTIPLIER, SCREENHEIGHT - MENUBARHEIGHT);
+            canvasRenderer.setMouseTransparent(true);
+            simulationArea.getChildren().add(0, canvasRenderer);
+            removeNodeAndEdgeViews();
+            
+            // Keep the ant views for reuse if switched back
+            simulationArea.getChildren().removeAll(antList);
+            antViewPool.addAll(antList);
+            antList.clear();
+            renderLoop.start();
+        } else {
+            renderLoop.stop();
+            simulationArea.getChildren().remove(canvasRenderer);
+            canvasRenderer = null;
+            runner.runExclusive(() -> {
+                for (GraphNode n : graph.getNodes()) {
+                    addNodeView(n);
+                }
+                for (GraphEdge e : graph.getEdges()) {
+                    addEdgeView(e);
+                }
+                if (simulation.hasBestRoute()) {
+                    highlightBestRoute(simulation.getBestRouteEdgeIDs());
+                }
+            });
+            updateDrawAnts(runner.getSnapshot());
         }
-        return cost;
     }
     
     /**
-     * Stores the new best route in list globalBestRoute. Removes highlighting
-     * from the old best route if it exists, and then highlights the new best 
-     * route.
-     * @param newBestEdges 
+     * Turns canvas rendering on before loading a graph with more nodes and
+     * edges than MAXVIEWS, so no views are made for them
+     * @param nodes - number of nodes to load
+     * @param edges - number of edges to load
      */
-    private void saveAndHighlightNewBestRoute(List<Edge> newBestEdges) {
-        // Remove highlighting from all edges
-        if (!bestRouteEdgeList.isEmpty()) {
-            for (Edge e : edgeList) {
-                e.setStroke(Color.BLACK);
-                e.setStrokeWidth(1.0);
-            }
-        }
-
-        // Update route
-        bestRouteEdgeList = new ArrayList(newBestEdges);
-
-        // Highlight edges
-        for (Edge e : bestRouteEdgeList) {
-            e.setStroke(Color.BLUE);
-            e.setStrokeWidth(2.0);
+    private void checkViewLimit(int nodes, int edges) {
+        if ((long) nodes + edges > MAXVIEWS && canvasRenderer == null) {
+            canvasRendering.setSelected(true);
+            setCanvasRendering(true);
+            log.appendText("Canvas rendering: on (too many nodes and edges to draw with views)\n");
         }
     }
     
     /**
-     * Updates ants location and draws
+     * Gets the step rate of the chosen simulation speed
+     * @return steps per second, infinite for unthrottled
      */
-    private void updateDrawAnts() {
-        // Manage ants movements
-        for (Ant a : antList) {
-            if (a.isOutwardBound()) {                
-                // Searching for destination
-                if (a.getNextNode() == null) {
-                    // Choose an edge if ant doesn't have a nextNode
-                    a.chooseEdge();
-
-                } else if (Math.abs(a.getCenterX() - a.getNextNode().getCenterX()) < 5 && 
-                        Math.abs(a.getCenterY() - a.getNextNode().getCenterY()) < 5) {
-                    // Close enough to the next node so jump to it and choose again or complete
-                    a.setX(a.getNextNode().getX() - 5.0);
-                    a.setY(a.getNextNode().getY() - 5.0);
-
-                     // Keep track of the last node in case we need to find the edge between current and last
-                    Node tempNodeForPrevCheck = a.getCurrentNode();
-
-                    a.setCurrentNode(a.getNextNode());
-
-                    // If at destination, return to source
-                    if (a.getCurrentNode().equals(getDestinationNode())) { 
-
-                        // Push the node
-                        a.pushNodeTaken(getDestinationNode());
-                        // Push the edge
-                        for (Edge e : getDestinationNode().getConnectedEdges()) {
-                            if (e.getConnectedNodes().contains(tempNodeForPrevCheck)) {
-                                a.pushEdgeTaken(e);
-                            }
-                        }
-
-                        // Store route cost for pheromone update and output route details
-                        a.setPrevRouteLength(calculateRouteCost(a.getEdgesTaken()));
-
-                        // Reset for return
-                        a.setNextNode(null);
-                        // Return to source
-                        a.setOutwardBound(false);
-                    } else if (a.getCurrentNode().getConnectedNodes().contains(getDestinationNode())) {
-                        // Choose the destination node
-                        a.setNextNode(getDestinationNode());
-                        
-                        // Work out and set current edge
-                        for (Edge e : getDestinationNode().getConnectedEdges()) {
-                            if (e.getConnectedNodes().contains(a.getCurrentNode())) {
-                                a.setCurrentEdge(e);
-                            }
-                        }
-                        
-                    } else {
-                        // If ant is back at source, reset it
-                        if (a.getCurrentNode().equals(getSourceNode())) {
-                            a.reset();
-                        }
-
-                        // Choose an edge if we are not 
-                        a.chooseEdge();
-                    }
-
-                } else {
-                    // Move
-                    a.travel();
-                }
-            } else {
-                // Returning to source
-                if (a.getNextNode() == null) {                               
-                    a.setNextNode(a.peekNodeTaken());
-                    // Set current edge
-                    a.setCurrentEdge(a.peekEdgeTaken());
-                } else if (Math.abs(a.getCenterX() - a.getNextNode().getCenterX()) < 5 && 
-                        Math.abs(a.getCenterY() - a.getNextNode().getCenterY()) < 5) {
-                    // Close enough to next node
-                    a.setX(a.getNextNode().getX() - 5.0);
-                    a.setY(a.getNextNode().getY() - 5.0);
-                    a.setCurrentNode(a.getNextNode());
-
-
-                    // If at source, search for destination
-                    if (a.getCurrentNode().equals(getSourceNode())) {
-
-                        // Reset for return
-                        a.setNextNode(null);
-                        // Return to destination
-                        a.setOutwardBound(true);
-                    } else if (a.getNodesTaken().size() == 0 && a.getEdgesTaken().size() == 0) {
-                        // Check for empty stack, if so we are next to source
-                        a.setNextNode(getSourceNode());
-                        
-                        // Work out and set current edge
-                        for (Edge e : getSourceNode().getConnectedEdges()) {
-                            if (e.getConnectedNodes().contains(a.getCurrentNode())) {
-                                a.setCurrentEdge(e);
-                            }
-                        }
-                    } else {
-                        // Pop node and edge
-                        a.popNodeTaken();
-                        if (algorithm == ALGORITHM.AS) {
-                            // Set current edge
-                            a.setCurrentEdge(a.peekEdgeTaken());
-                            // Pop and add pheromone
-                            a.popEdgeTaken().addPheromone(pheromoneConstant/a.getPrevRouteLength() * PHERMULTIPLIER, false);
-                            
-                        } else {
-                            // Set current edge
-                            a.setCurrentEdge(a.peekEdgeTaken());
-                            // Pop
-                            a.popEdgeTaken();
-                        }
-
-                        // Set the next node as the top of the node stack
-                        if (!a.getNodesTaken().empty()) {
-                            a.setNextNode(a.peekNodeTaken());
-                        }
-                    }
-                } else {
-                    // Move
-                    a.travel();
-                }
-            }
+    private double getStepRate() {
+        switch (speedChoiceBox.getValue()) {
+            case "Fast":
+                return FASTSTEPSPERSECOND;
+            case "Unthrottled":
+                return Double.POSITIVE_INFINITY;
+            default:
+                return simulation.getStepsPerSecond();
         }
     }
     
     /**
-     * Updates pheromone
-     * Note:AS adds pheromone within updateDrawAnts()
+     * Updates the runtime value display
+     * @param runtime - runtime in seconds
      */
-    private void updatePheromone() {                   
-        // Switch on algorithm so correct pheromone update is used.
-        if (algorithm == ALGORITHM.AS) {
-            //Pheromone decay
-            for (Edge e : edgeList) {
-                e.setPheromone(e.getPheromone() * evaporation, false);
-            }
-        } else if (algorithm == ALGORITHM.MMAS) {
-            // Deposit on best route and check for stagnation
-            if (!bestRouteEdgeList.isEmpty()) {
-                double routeLength = getRouteCost(bestRouteEdgeList);
-
-                for (Edge e : bestRouteEdgeList) {
-                    e.addPheromone((pheromoneConstant/routeLength) * PHERMULTIPLIER, true);
-                }
-
-                stagnationCounter++;
-                // If route best route is stagnent for 20 iterations refresh all edges
-                if (stagnationCounter == stagnationSecondLimit) {
-                    log.appendText("\tStagnant for " + stagnationSecondLimit + " seconds, refresing pheromone!\n");
-                    simLogger.log(Level.INFO, "Runtime:{0}s - Stagnant for {1} seconds, refreshing pheromone!", new Object[]{simulationRuntime, stagnationSecondLimit});
-                    for (Edge e : edgeList) {
-                        if (!bestRouteEdgeList.contains(e)) {
-                            e.addPheromone(10, true);
-                        }
-                    }
-                    stagnationCounter = 0;
-                }
-            }
-            
-            //Pheromone decay
-            for (Edge e : edgeList) {
-                e.setPheromone(e.getPheromone() * evaporation, true);
-            }
-        }
+    private void updateRuntime(long runtime) {
+        runtimeValueLabel.setText(String.valueOf(runtime)+"s");
     }
     
     /**
-     * Updates the runtime value display by adding 1 second
+     * Called by the simulation loop when the simulated runtime changes:
+     * updates the displays and runs the logic for automated simulations
+     * @param snapshot - snapshot of the simulation
      */
-    private void updateRuntime() {
-        simulationRuntime += 1;
-        runtimeValueLabel.setText(String.valueOf(simulationRuntime)+"s");
+    private void secondPassed(SimulationSnapshot snapshot) {
+        updateRuntime(snapshot.getRuntime());
+        
+        if (snapshot.hasBestRoute()) {
+            // Display best cost (cost can change due to traffic)
+            bestRouteCostValueLabel.setText(String.valueOf(Math.round(snapshot.getBestRouteCost())));
+        }
+        
+        // Logic for automated simulations
+        if (automatedSim) {
+            if (simulationsRun < maxIterations) {
+                if (snapshot.getRuntime() > maxRuntime) {
+                    // Stop simulation
+                    startStop.fire();
+                    // Increment counter
+                    simulationsRun++;
+                    // Reset simulation
+                    reset.fire();
+                    // Restart simulation
+                    startStop.fire();
+                }
+            } else {
+                // Stop simulation
+                simulationLoop.stop();
+                reset.fire();
+                
+                resetAutomatedSim();
+                
+                log.appendText("End of automated simulations - see log file for results!\n");
+            }
+        }
     }
     
     /**
@@ -1555,13 +1650,13 @@ public class ACODynamic extends Application implements Serializable {
      */
     private void openSettingsWindow() {
         // MAXANTS
-        maxAntsSlider = new Slider(1, 1000, MAXANTS);
+        maxAntsSlider = new Slider(1, 1000, simulation.getMaxAnts());
         maxAntsSlider.setMajorTickUnit(100); // Every 10
         maxAntsSlider.setBlockIncrement(1);
         maxAntsSlider.setSnapToPixel(true);
         maxAntsSlider.setShowTickMarks(true);
         maxAntsSlider.setPrefWidth(200);
-        maxAntsValue = new Label(String.valueOf(MAXANTS));
+        maxAntsValue = new Label(String.valueOf(simulation.getMaxAnts()));
         // Listener to update value label
         maxAntsSlider.valueProperty().addListener((ObservableValue<? extends Number> observable, Number oldVale, Number newValue) -> {
             maxAntsValue.setText(String.valueOf(newValue.intValue()));
@@ -1581,26 +1676,70 @@ public class ACODynamic extends Application implements Serializable {
         });
         
         // Pheromone multiplier
-        pherMultiplierSlider = new Slider(1, 5, PHERMULTIPLIER);
+        pherMultiplierSlider = new Slider(1, 5, simulation.getPheromoneMultiplier());
         pherMultiplierSlider.setMajorTickUnit(1);
         pherMultiplierSlider.setBlockIncrement(1);
         pherMultiplierSlider.setSnapToTicks(true);
         pherMultiplierSlider.setShowTickMarks(true);
         pherMultiplierSlider.setPrefWidth(200);
-        pherMultiplierValue = new Label(String.valueOf(PHERMULTIPLIER));
+        pherMultiplierValue = new Label(String.valueOf(simulation.getPheromoneMultiplier()));
         // Listener to update value label
         pherMultiplierSlider.valueProperty().addListener((ObservableValue<? extends Number> observable, Number oldValue, Number newValue) -> {
             pherMultiplierValue.setText(String.valueOf(newValue.intValue()));
         });
 
+        // Steps per second (per pheromone update)
+        stepsPerSecondSlider = new Slider(10, 600, simulation.getStepsPerSecond());
+        stepsPerSecondSlider.setMajorTickUnit(100);
+        stepsPerSecondSlider.setBlockIncrement(10);
+        stepsPerSecondSlider.setShowTickMarks(true);
+        stepsPerSecondSlider.setPrefWidth(200);
+        stepsPerSecondValue = new Label(String.valueOf(simulation.getStepsPerSecond()));
+        // Listener to update value label
+        stepsPerSecondSlider.valueProperty().addListener((ObservableValue<? extends Number> observable, Number oldValue, Number newValue) -> {
+            stepsPerSecondValue.setText(String.valueOf(newValue.intValue()));
+        });
+        
+        // Threads stepping the ants, 1 for serial
+        int processors = Runtime.getRuntime().availableProcessors();
+        threadsSlider = new Slider(1, Math.max(2, processors), simulation.getParallelism());
+        threadsSlider.setMajorTickUnit(1);
+        threadsSlider.setMinorTickCount(0);
+        threadsSlider.setSnapToTicks(true);
+        threadsSlider.setShowTickMarks(processors <= 16);
+        threadsSlider.setPrefWidth(200);
+        threadsValue = new Label(String.valueOf(simulation.getParallelism()));
+        // Listener to update value label
+        threadsSlider.valueProperty().addListener((ObservableValue<? extends Number> observable, Number oldValue, Number newValue) -> {
+            threadsValue.setText(String.valueOf(newValue.intValue()));
+        });
+        
+        // Seed
+        seedField = new TextField(String.valueOf(simulation.getSeed()));
+        seedField.setPrefColumnCount(12);
+
         // Save and close
         saveSettingsButton.setOnAction(action -> {
-            MAXANTS = (int) maxAntsSlider.getValue();
+            try {
+                long seed = Long.parseLong(seedField.getText().trim());
+                if (seed != simulation.getSeed()) {
+                    simulation.setSeed(seed);
+                    log.appendText("Seed: " + seed + "\n");
+                }
+            } catch (NumberFormatException nfe) {
+                log.appendText("[E]: Seed must be a whole number!\n");
+                return;
+            }
+            simulation.setMaxAnts((int) maxAntsSlider.getValue());
             MAXNODES = (int) maxNodesSlider.getValue();
-            PHERMULTIPLIER = (double) pherMultiplierSlider.getValue();
-            log.appendText("Settings changed:\nMax ants: " + String.valueOf(MAXANTS) + 
+            simulation.setPheromoneMultiplier((double) pherMultiplierSlider.getValue());
+            simulation.setStepsPerSecond((int) stepsPerSecondSlider.getValue());
+            simulation.setParallelism((int) threadsSlider.getValue());
+            log.appendText("Settings changed:\nMax ants: " + String.valueOf(simulation.getMaxAnts()) + 
                     "\nMax nodes: " + String.valueOf(MAXNODES) + 
-                    "\nPheromone multiplier: " + String.valueOf(PHERMULTIPLIER) + "\n");
+                    "\nPheromone multiplier: " + String.valueOf(simulation.getPheromoneMultiplier()) +
+                    "\nSteps per second: " + String.valueOf(simulation.getStepsPerSecond()) +
+                    "\nStepping threads: " + String.valueOf(simulation.getParallelism()) + "\n");
             
             // Close settings window
             settingsStage.close();
@@ -1624,12 +1763,23 @@ public class ACODynamic extends Application implements Serializable {
         GridPane.setConstraints(pherMultiplierLabel, 0, 2);
         GridPane.setConstraints(pherMultiplierSlider, 1, 2);
         GridPane.setConstraints(pherMultiplierValue, 2, 2);
-        GridPane.setConstraints(saveSettingsButton, 2, 3);
+        GridPane.setConstraints(stepsPerSecondLabel, 0, 3);
+        GridPane.setConstraints(stepsPerSecondSlider, 1, 3);
+        GridPane.setConstraints(stepsPerSecondValue, 2, 3);
+        GridPane.setConstraints(threadsLabel, 0, 4);
+        GridPane.setConstraints(threadsSlider, 1, 4);
+        GridPane.setConstraints(threadsValue, 2, 4);
+        GridPane.setConstraints(seedLabel, 0, 5);
+        GridPane.setConstraints(seedField, 1, 5);
+        GridPane.setConstraints(saveSettingsButton, 2, 6);
         
         // Add to grid (show layout with format)
         settingsGrid.getChildren().addAll(maxAntsLabel, maxAntsSlider, maxAntsValue,
                                 maxNodesLabel, maxNodesSlider, maxNodesValue,
                                 pherMultiplierLabel, pherMultiplierSlider, pherMultiplierValue,
+                                stepsPerSecondLabel, stepsPerSecondSlider, stepsPerSecondValue,
+                                threadsLabel, threadsSlider, threadsValue,
+                                seedLabel, seedField,
                                                                             saveSettingsButton);
 
         settingsStage = new Stage();
@@ -1647,7 +1797,7 @@ public class ACODynamic extends Application implements Serializable {
      */
     private void openAutomatedSimWindow() {
         // Reset the simulation if it has been started
-        if (simulationRuntime != 0) {
+        if (simulation.getRuntime() != 0) {
             reset.fire();
         }
         
@@ -1721,11 +1871,11 @@ public class ACODynamic extends Application implements Serializable {
     }
     
     /**
-     * Outputs simulation settings: max ants, max nodes, pheromone multiplier, algorithm
+     * Outputs simulation settings: max ants, max nodes, pheromone multiplier, algorithm, seed
      */
     private void outputSimSettings() {
-        simLogger.log(Level.INFO, "Sim Params: Max ants:{0}   Max nodes:{1}   Pheromone multiplier:{2}   Sim iterations:{3}   Sim runtime:{4}",
-                                    new Object[]{MAXANTS, MAXNODES, PHERMULTIPLIER, maxIterations, maxRuntime});
+        simLogger.log(Level.INFO, "Sim Params: Max ants:{0}   Max nodes:{1}   Pheromone multiplier:{2}   Sim iterations:{3}   Sim runtime:{4}   Seed:{5}",
+                                    new Object[]{simulation.getMaxAnts(), MAXNODES, simulation.getPheromoneMultiplier(), maxIterations, maxRuntime, String.valueOf(simulation.getSeed())});
     }
     
     /**
@@ -0,0 +1,520 @@
+package com.readyplayer2.aco.dynamic;
+
+import com.readyplayer2.aco.dynamic.model.Algorithm;
+import com.readyplayer2.aco.dynamic.model.EnvironmentFile;
+import com.readyplayer2.aco.dynamic.model.Graph;
+import com.readyplayer2.aco.dynamic.model.Simulation;
+import com.readyplayer2.aco.dynamic.model.SimulationListener;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs automated simulations from the command line, without the GUI. Every
+ * combination of the given settings is run once per seed, on all cores and
+ * with the simulated clock running as fast as possible. For each combination
+ * the best route cost and the time taken to find it are summarised over the
+ * seeds and written as CSV or JSON.
+ *
+ * e.g. java -cp ACO-Dynamic.jar com.readyplayer2.aco.dynamic.BatchRunner
+ * city.aco --ants 50,100 --algorithm AS,MMAS --seeds 1..30 --csv results.csv
+ * @author ReadyPlayer2
+ */
+public class BatchRunner {
+    private static final String USAGE =
+            "Usage: BatchRunner <environment.aco> [options]\n" +
+            "  --ants <list>         number of ants (default 100)\n" +
+            "  --multiplier <list>   pheromone multiplier (default 1)\n" +
+            "  --algorithm <list>    AS and/or MMAS (default MMAS)\n" +
+            "  --evaporation <list>  fraction of pheromone kept each second (default 0.9)\n" +
+            "  --seeds <list>        seeds to run each combination with (default 1..10)\n" +
+            "  --runtime <seconds>   simulated seconds per run (default 60)\n" +
+            "  --threads <count>     runs at once (default number of cores)\n" +
+            "  --event-driven        use event driven ants\n" +
+            "  --csv <file>          write results as CSV (default, to standard output)\n" +
+            "  --json <file>         write results as JSON\n" +
+            "Lists are comma separated, whole numbers can also be ranges, e.g. 1..30\n";
+
+    // Two-sided 95% Student t values for 1 to 30 degrees of freedom
+    private static final double[] TVALUES = {
+        12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+        2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+        2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+
+    private final EnvironmentFile environment;
+    private final int runtime;
+    private final boolean eventDriven;
+
+    /**
+     * Settings for one combination in the sweep
+     */
+    private static class Config {
+        final Algorithm algorithm;
+        final int ants;
+        final double multiplier;
+        final double evaporation;
+
+        Config(Algorithm algorithm, int ants, double multiplier, double evaporation) {
+            this.algorithm = algorithm;
+            this.ants = ants;
+            this.multiplier = multiplier;
+            this.evaporation = evaporation;
+        }
+    }
+
+    /**
+     * Outcome of one run
+     */
+    private static class RunResult {
+        // Best route cost, NaN if no route was found
+        final double cost;
+        // Simulated second the best route was found in, NaN if none
+        final double timeToBest;
+
+        RunResult(double cost, double timeToBest) {
+            this.cost = cost;
+            this.timeToBest = timeToBest;
+        }
+    }
+
+    /**
+     * Mean, median and 95% confidence interval of the mean of some values
+     */
+    private static class Summary {
+        final int count;
+        final double mean;
+        final double median;
+        final double stdDev;
+        final double ciLow;
+        final double ciHigh;
+        final double min;
+
+        Summary(double[] values) {
+            count = values.length;
+            if (count == 0) {
+                mean = median = stdDev = ciLow = ciHigh = min = Double.NaN;
+                return;
+            }
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            double sum = 0;
+            for (double v : sorted) {
+                sum += v;
+            }
+            mean = sum / count;
+            median = count % 2 == 1 ? sorted[count / 2]
+                    : (sorted[count / 2 - 1] + sorted[count / 2]) / 2;
+            min = sorted[0];
+            if (count == 1) {
+                stdDev = ciLow = ciHigh = Double.NaN;
+                return;
+            }
+            double squares = 0;
+            for (double v : sorted) {
+                squares += (v - mean) * (v - mean);
+            }
+            stdDev = Math.sqrt(squares / (count - 1));
+            double margin = tValue(count - 1) * stdDev / Math.sqrt(count);
+            ciLow = mean - margin;
+            ciHigh = mean + margin;
+        }
+    }
+
+    /**
+     * Creates a runner for an environment
+     * @param environment - environment every run uses
+     * @param runtime - simulated seconds per run
+     * @param eventDriven - true to use event driven ants
+     */
+    public BatchRunner(EnvironmentFile environment, int runtime, boolean eventDriven) {
+        this.environment = environment;
+        this.runtime = runtime;
+        this.eventDriven = eventDriven;
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0 || args[0].equals("--help")) {
+            System.err.print(USAGE);
+            System.exit(args.length == 0 ? 2 : 0);
+        }
+        try {
+            System.exit(runCommand(args));
+        } catch (IllegalArgumentException iae) {
+            System.err.println("[E]: " + iae.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        } catch (IOException ioe) {
+            System.err.println("[E]: " + ioe.getMessage());
+            System.exit(1);
+        } catch (InterruptedException ie) {
+            System.err.println("[E]: Interrupted!");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Parses the arguments, runs the sweep and writes the results
+     * @param args - command line arguments
+     * @return exit code
+     * @throws IOException if the environment can not be read or the results written
+     * @throws InterruptedException if interrupted while waiting for runs
+     */
+    private static int runCommand(String[] args) throws IOException, InterruptedException {
+        Path environmentPath = Paths.get(args[0]);
+        List<Integer> ants = Arrays.asList(100);
+        List<Double> multipliers = Arrays.asList(1.0);
+        List<Algorithm> algorithms = Arrays.asList(Algorithm.MMAS);
+        List<Double> evaporations = Arrays.asList(0.9);
+        List<Integer> seeds = parseInts("1..10");
+        int runtime = 60;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean eventDriven = false;
+        Path csv = null;
+        Path json = null;
+
+        for (int i = 1; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--event-driven")) {
+                eventDriven = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--ants":
+                    ants = parseInts(value);
+                    break;
+                case "--multiplier":
+                    multipliers = parseDoubles(value);
+                    break;
+                case "--algorithm":
+                    algorithms = new ArrayList<>();
+                    for (String name : value.split(",")) {
+                        try {
+                            algorithms.add(Algorithm.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+                        } catch (IllegalArgumentException iae) {
+                            throw new IllegalArgumentException("Unknown algorithm: " + name);
+                        }
+                    }
+                    break;
+                case "--evaporation":
+                    evaporations = parseDoubles(value);
+                    break;
+                case "--seeds":
+                    seeds = parseInts(value);
+                    break;
+                case "--runtime":
+                    runtime = parseInts(value).get(0);
+                    break;
+                case "--threads":
+                    threads = parseInts(value).get(0);
+                    break;
+                case "--csv":
+                    csv = Paths.get(value);
+                    break;
+                case "--json":
+                    json = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+        if (runtime < 1 || threads < 1) {
+            throw new IllegalArgumentException("Runtime and threads must be at least 1");
+        }
+        for (int antCount : ants) {
+            if (antCount < 1) {
+                throw new IllegalArgumentException("Number of ants must be at least 1");
+            }
+        }
+        for (double evaporation : evaporations) {
+            if (!(evaporation > 0 && evaporation <= 1)) {
+                throw new IllegalArgumentException("Evaporation must be above 0 and at most 1");
+            }
+        }
+        if (!EnvironmentFile.isEnvironmentFile(environmentPath)) {
+            throw new IOException("Not an .aco environment file: " + environmentPath);
+        }
+
+        List<Config> configs = new ArrayList<>();
+        for (Algorithm algorithm : algorithms) {
+            for (int antCount : ants) {
+                for (double multiplier : multipliers) {
+                    for (double evaporation : evaporations) {
+                        configs.add(new Config(algorithm, antCount, multiplier, evaporation));
+                    }
+                }
+            }
+        }
+
+        BatchRunner batch = new BatchRunner(EnvironmentFile.read(environmentPath), runtime, eventDriven);
+        RunResult[][] results = batch.runAll(configs, seeds, threads);
+
+        if (csv == null && json == null) {
+            System.out.print(toCsv(configs, results));
+        }
+        if (csv != null) {
+            Files.write(csv, toCsv(configs, results).getBytes(StandardCharsets.UTF_8));
+        }
+        if (json != null) {
+            Files.write(json, toJson(configs, results).getBytes(StandardCharsets.UTF_8));
+        }
+        return 0;
+    }
+
+    /**
+     * Runs every config with every seed
+     * @param configs - settings to run
+     * @param seeds - seeds to run each config with
+     * @param threads - number of runs at once
+     * @return results, by config then seed
+     * @throws InterruptedException if interrupted while waiting for runs
+     */
+    private RunResult[][] runAll(List<Config> configs, List<Integer> seeds, int threads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<List<Future<RunResult>>> futures = new ArrayList<>();
+            for (Config config : configs) {
+                List<Future<RunResult>> configFutures = new ArrayList<>();
+                for (int seed : seeds) {
+                    configFutures.add(executor.submit(() -> run(config, seed)));
+                }
+                futures.add(configFutures);
+            }
+
+            RunResult[][] results = new RunResult[configs.size()][seeds.size()];
+            int total = configs.size() * seeds.size();
+            int done = 0;
+            for (int c = 0; c < configs.size(); c++) {
+                for (int s = 0; s < seeds.size(); s++) {
+                    try {
+                        results[c][s] = futures.get(c).get(s).get();
+                    } catch (ExecutionException ee) {
+                        if (ee.getCause() instanceof RuntimeException) {
+                            throw (RuntimeException) ee.getCause();
+                        }
+                        throw new IllegalStateException("Run failed", ee.getCause());
+                    }
+                    done++;
+                }
+                System.err.println("Finished " + done + "/" + total + " runs");
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs one simulation on its own copy of the environment
+     * @param config - settings
+     * @param seed - seed
+     * @return best route cost and when it was found
+     */
+    private RunResult run(Config config, long seed) {
+        Graph graph = new Graph();
+        environment.addTo(graph, 1.0, 1.0);
+        Simulation simulation = new Simulation(graph);
+        simulation.setSeed(seed);
+        simulation.setAlgorithm(config.algorithm);
+        simulation.setMaxAnts(config.ants);
+        simulation.setPheromoneMultiplier(config.multiplier);
+        simulation.setEvaporation(config.evaporation);
+        simulation.setEventDriven(eventDriven);
+        if (!simulation.isRunnable()) {
+            throw new IllegalArgumentException("Environment needs a connected source and destination");
+        }
+
+        double[] timeToBest = {Double.NaN};
+        simulation.setListener(new SimulationListener() {
+            @Override
+            public void newBestRoute(int[] route, double cost, String edgeIDs) {
+                timeToBest[0] = simulation.getRuntime() + 1;
+            }
+
+            @Override
+            public void followingBestRoute() {
+            }
+
+            @Override
+            public void pheromoneRefreshed(int stagnantSeconds) {
+            }
+        });
+
+        simulation.spawnAnts();
+        for (int s = 0; s < runtime; s++) {
+            simulation.runSecond();
+        }
+        double cost = simulation.hasBestRoute() ? simulation.getBestRouteCost() : Double.NaN;
+        return new RunResult(cost, timeToBest[0]);
+    }
+
+    /**
+     * Formats a summary per config as CSV
+     * @param configs - settings run
+     * @param results - results, by config then seed
+     * @return CSV text with a header line
+     */
+    private static String toCsv(List<Config> configs, RunResult[][] results) {
+        StringWriter out = new StringWriter();
+        PrintWriter pw = new PrintWriter(out);
+        pw.println("algorithm,ants,multiplier,evaporation,runs,found," +
+                "cost_min,cost_mean,cost_median,cost_stddev,cost_ci95_low,cost_ci95_high," +
+                "time_mean,time_median,time_stddev,time_ci95_low,time_ci95_high");
+        for (int c = 0; c < configs.size(); c++) {
+            Config config = configs.get(c);
+            Summary cost = new Summary(costs(results[c]));
+            Summary time = new Summary(times(results[c]));
+            pw.println(config.algorithm + "," + config.ants + "," + number(config.multiplier) + "," +
+                    number(config.evaporation) + "," + results[c].length + "," + cost.count + "," +
+                    number(cost.min) + "," + number(cost.mean) + "," + number(cost.median) + "," +
+                    number(cost.stdDev) + "," + number(cost.ciLow) + "," + number(cost.ciHigh) + "," +
+                    number(time.mean) + "," + number(time.median) + "," + number(time.stdDev) + "," +
+                    number(time.ciLow) + "," + number(time.ciHigh));
+        }
+        pw.flush();
+        return out.toString();
+    }
+
+    /**
+     * Formats a summary per config as a JSON array, with the per seed results
+     * @param configs - settings run
+     * @param results - results, by config then seed
+     * @return JSON text
+     */
+    private static String toJson(List<Config> configs, RunResult[][] results) {
+        StringBuilder sb = new StringBuilder("[\n");
+        for (int c = 0; c < configs.size(); c++) {
+            Config config = configs.get(c);
+            sb.append("  {\"algorithm\": \"").append(config.algorithm)
+                    .append("\", \"ants\": ").append(config.ants)
+                    .append(", \"multiplier\": ").append(jsonNumber(config.multiplier))
+                    .append(", \"evaporation\": ").append(jsonNumber(config.evaporation))
+                    .append(", \"runs\": ").append(results[c].length)
+                    .append(",\n   \"cost\": ").append(jsonSummary(new Summary(costs(results[c]))))
+                    .append(",\n   \"time\": ").append(jsonSummary(new Summary(times(results[c]))))
+                    .append(",\n   \"costs\": [");
+            for (int s = 0; s < results[c].length; s++) {
+                sb.append(s == 0 ? "" : ", ").append(jsonNumber(results[c][s].cost));
+            }
+            sb.append("],\n   \"times\": [");
+            for (int s = 0; s < results[c].length; s++) {
+                sb.append(s == 0 ? "" : ", ").append(jsonNumber(results[c][s].timeToBest));
+            }
+            sb.append("]}").append(c == configs.size() - 1 ? "\n" : ",\n");
+        }
+        return sb.append("]\n").toString();
+    }
+
+    private static String jsonSummary(Summary s) {
+        return "{\"count\": " + s.count + ", \"min\": " + jsonNumber(s.min) +
+                ", \"mean\": " + jsonNumber(s.mean) + ", \"median\": " + jsonNumber(s.median) +
+                ", \"stddev\": " + jsonNumber(s.stdDev) + ", \"ci95\": [" + jsonNumber(s.ciLow) +
+                ", " + jsonNumber(s.ciHigh) + "]}";
+    }
+
+    /**
+     * Gets the best route costs of the runs which found a route
+     * @param runs - results of one config
+     * @return costs
+     */
+    private static double[] costs(RunResult[] runs) {
+        return Arrays.stream(runs).mapToDouble(r -> r.cost).filter(v -> !Double.isNaN(v)).toArray();
+    }
+
+    /**
+     * Gets the times to best route of the runs which found a route
+     * @param runs - results of one config
+     * @return times in simulated seconds
+     */
+    private static double[] times(RunResult[] runs) {
+        return Arrays.stream(runs).mapToDouble(r -> r.timeToBest).filter(v -> !Double.isNaN(v)).toArray();
+    }
+
+    /**
+     * Gets the two-sided 95% Student t value
+     * @param degreesOfFreedom - one less than the number of values
+     * @return t value
+     */
+    private static double tValue(int degreesOfFreedom) {
+        if (degreesOfFreedom <= TVALUES.length) {
+            return TVALUES[degreesOfFreedom - 1];
+        } else if (degreesOfFreedom <= 40) {
+            return 2.021;
+        } else if (degreesOfFreedom <= 60) {
+            return 2.000;
+        } else if (degreesOfFreedom <= 120) {
+            return 1.980;
+        }
+        return 1.960;
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.4f", value);
+    }
+
+    private static String jsonNumber(double value) {
+        return Double.isNaN(value) ? "null" : String.format(Locale.ROOT, "%.4f", value);
+    }
+
+    /**
+     * Parses a comma separated list of whole numbers and ranges, e.g. 1,5..8
+     * @param list - list to parse
+     * @return numbers in order
+     */
+    private static List<Integer> parseInts(String list) {
+        List<Integer> values = new ArrayList<>();
+        try {
+            for (String part : list.split(",")) {
+                int range = part.indexOf("..");
+                if (range == -1) {
+                    values.add(Integer.parseInt(part.trim()));
+                } else {
+                    int from = Integer.parseInt(part.substring(0, range).trim());
+                    int to = Integer.parseInt(part.substring(range + 2).trim());
+                    for (int v = from; v <= to; v++) {
+                        values.add(v);
+                    }
+                }
+            }
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Not a list of whole numbers: " + list);
+        }
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("Empty list: " + list);
+        }
+        return values;
+    }
+
+    /**
+     * Parses a comma separated list of numbers
+     * @param list - list to parse
+     * @return numbers in order
+     */
+    private static List<Double> parseDoubles(String list) {
+        List<Double> values = new ArrayList<>();
+        try {
+            for (String part : list.split(",")) {
+                values.add(Double.parseDouble(part.trim()));
+            }
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Not a list of numbers: " + list);
+        }
+        return values;
+    }
+}
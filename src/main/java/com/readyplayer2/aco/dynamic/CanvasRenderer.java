@@ -0,0 +1,194 @@
+package com.readyplayer2.aco.dynamic;
+
+import com.readyplayer2.aco.dynamic.model.CsrGraph;
+import com.readyplayer2.aco.dynamic.model.GraphNode;
+import com.readyplayer2.aco.dynamic.model.SimulationSnapshot;
+import java.util.Arrays;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * Draws the edges, nodes, best route and ants of a simulation onto one canvas,
+ * straight from a snapshot of the model, instead of keeping a scene graph node for each.
+ * Edges are drawn as one path per colour, and nodes and ants are written into
+ * a pixel buffer which is copied to the canvas as a single image.
+ * @author ReadyPlayer2
+ */
+public class CanvasRenderer extends Canvas {
+    // Same size and colours as the Ant, Node and Edge views
+    private static final int ANTSIZE = 10;
+    private static final int OUTWARDCOLOUR = 0xFFDC143C; // Crimson
+    private static final int RETURNCOLOUR = 0xFF008000; // Green
+    private static final int NODECOLOUR = 0xFF000000; // Black
+    private static final int SOURCECOLOUR = 0xFF008000; // Green
+    private static final int DESTINATIONCOLOUR = 0xFFFF0000; // Red
+    private static final int HIGHLIGHTCOLOUR = 0xFF8B008B; // Dark magenta
+    // Half width of each row of a node's circle, for both node sizes
+    private static final int[] NODEROWS = circleRows(Node.SIZE);
+    private static final int[] LARGENODEROWS = circleRows(Node.SIZE * 2);
+
+    // Node and ant layer, one ARGB value per pixel
+    private int[] pixels = new int[0];
+    private WritableImage image;
+    private int imageWidth = 0;
+    private int imageHeight = 0;
+
+    /**
+     * Creates a renderer covering the simulation area
+     * @param width - width of the simulation area
+     * @param height - height of the simulation area
+     */
+    public CanvasRenderer(double width, double height) {
+        super(width, height);
+    }
+
+    /**
+     * Clears the canvas and draws a snapshot of a simulation
+     * @param snapshot - snapshot to draw
+     * @param highlighted - node selected in the editor, or null
+     */
+    public void draw(SimulationSnapshot snapshot, GraphNode highlighted) {
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.clearRect(0, 0, getWidth(), getHeight());
+
+        gc.setStroke(Color.BLACK);
+        gc.setLineWidth(1.0);
+        strokeEdges(gc, snapshot, false);
+        if (snapshot.hasBestRoute()) {
+            gc.setStroke(Color.BLUE);
+            gc.setLineWidth(2.0);
+            strokeEdges(gc, snapshot, true);
+        }
+
+        drawPoints(gc, snapshot, highlighted);
+    }
+
+    /**
+     * Strokes either the best route edges or all the others as one path
+     * @param gc - graphics context of the canvas
+     * @param snapshot - snapshot holding the graph and best route
+     * @param bestRoute - true for the best route edges
+     */
+    private void strokeEdges(GraphicsContext gc, SimulationSnapshot snapshot, boolean bestRoute) {
+        CsrGraph csr = snapshot.getGraph();
+        gc.beginPath();
+        for (int e = 0; e < csr.getEdgeCount(); e++) {
+            if (snapshot.isBestRouteEdge(e) == bestRoute) {
+                int from = csr.getEdgeFrom(e);
+                int to = csr.getEdgeTo(e);
+                gc.moveTo(csr.getNodeX(from), csr.getNodeY(from));
+                gc.lineTo(csr.getNodeX(to), csr.getNodeY(to));
+            }
+        }
+        gc.stroke();
+    }
+
+    /**
+     * Fills a circle for each node and a square for each ant in the pixel
+     * buffer and draws the buffer. The source, destination and highlighted
+     * node are drawn over the other nodes, and ants over all of them.
+     * @param gc - graphics context of the canvas
+     * @param snapshot - snapshot holding the graph and ants
+     * @param highlighted - node selected in the editor, or null
+     */
+    private void drawPoints(GraphicsContext gc, SimulationSnapshot snapshot, GraphNode highlighted) {
+        CsrGraph csr = snapshot.getGraph();
+        if ((csr.getNodeCount() == 0 && snapshot.getAntCount() == 0) || !ensureImage()) {
+            return;
+        }
+        Arrays.fill(pixels, 0);
+        for (int n = 0; n < csr.getNodeCount(); n++) {
+            if (n != csr.getSource() && n != csr.getDestination()) {
+                fillCircle(csr.getNodeX(n), csr.getNodeY(n), NODEROWS, NODECOLOUR);
+            }
+        }
+        if (csr.getSource() != -1) {
+            fillCircle(csr.getNodeX(csr.getSource()), csr.getNodeY(csr.getSource()), LARGENODEROWS, SOURCECOLOUR);
+        }
+        if (csr.getDestination() != -1) {
+            fillCircle(csr.getNodeX(csr.getDestination()), csr.getNodeY(csr.getDestination()), LARGENODEROWS, DESTINATIONCOLOUR);
+        }
+        if (highlighted != null) {
+            boolean large = highlighted.isSource() || highlighted.isDestination();
+            fillCircle(highlighted.getX(), highlighted.getY(), large ? LARGENODEROWS : NODEROWS, HIGHLIGHTCOLOUR);
+        }
+
+        for (int i = 0; i < snapshot.getAntCount(); i++) {
+            int left = (int) Math.round(snapshot.getAntX(i) - (ANTSIZE / 2.0));
+            int top = (int) Math.round(snapshot.getAntY(i) - (ANTSIZE / 2.0));
+            int x0 = Math.max(0, left);
+            int x1 = Math.min(imageWidth, left + ANTSIZE);
+            int y0 = Math.max(0, top);
+            int y1 = Math.min(imageHeight, top + ANTSIZE);
+            if (x0 >= x1) {
+                continue;
+            }
+            int colour = snapshot.isOutwardBound(i) ? OUTWARDCOLOUR : RETURNCOLOUR;
+            for (int y = y0; y < y1; y++) {
+                Arrays.fill(pixels, y * imageWidth + x0, y * imageWidth + x1, colour);
+            }
+        }
+        image.getPixelWriter().setPixels(0, 0, imageWidth, imageHeight,
+                PixelFormat.getIntArgbPreInstance(), pixels, 0, imageWidth);
+        gc.drawImage(image, 0, 0);
+    }
+
+    /**
+     * Fills a circle in the pixel buffer, clipped to its edges
+     * @param x - centre x
+     * @param y - centre y
+     * @param rows - half width of each row of the circle, from circleRows()
+     * @param colour - ARGB colour
+     */
+    private void fillCircle(double x, double y, int[] rows, int colour) {
+        int radius = rows.length / 2;
+        int cx = (int) Math.round(x);
+        int cy = (int) Math.round(y);
+        int y0 = Math.max(0, cy - radius);
+        int y1 = Math.min(imageHeight, cy + radius + 1);
+        for (int row = y0; row < y1; row++) {
+            int half = rows[row - cy + radius];
+            int x0 = Math.max(0, cx - half);
+            int x1 = Math.min(imageWidth, cx + half + 1);
+            if (x0 < x1) {
+                Arrays.fill(pixels, row * imageWidth + x0, row * imageWidth + x1, colour);
+            }
+        }
+    }
+
+    /**
+     * Works out the half width of each pixel row of a circle
+     * @param radius - radius of the circle
+     * @return half widths, from the top row to the bottom
+     */
+    private static int[] circleRows(double radius) {
+        int r = (int) Math.round(radius);
+        int[] rows = new int[(2 * r) + 1];
+        for (int dy = -r; dy <= r; dy++) {
+            rows[dy + r] = (int) Math.sqrt((radius * radius) - (dy * dy));
+        }
+        return rows;
+    }
+
+    /**
+     * Makes sure the node and ant layer matches the size of the canvas
+     * @return false if the canvas has no area
+     */
+    private boolean ensureImage() {
+        int width = (int) Math.ceil(getWidth());
+        int height = (int) Math.ceil(getHeight());
+        if (width <= 0 || height <= 0) {
+            return false;
+        }
+        if (width != imageWidth || height != imageHeight) {
+            imageWidth = width;
+            imageHeight = height;
+            pixels = new int[width * height];
+            image = new WritableImage(width, height);
+        }
+        return true;
+    }
+}
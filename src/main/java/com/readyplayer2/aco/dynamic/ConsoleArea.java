@@ -0,0 +1,23 @@
+package com.readyplayer2.aco.dynamic;
+
+import javafx.scene.control.TextArea;
+
+/**
+ * Log text area which only keeps the most recent text, so a long run does
+ * not grow it without limit. When the text passes MAXLENGTH the oldest whole
+ * lines are removed, down to about half of it.
+ * @author ReadyPlayer2
+ */
+public class ConsoleArea extends TextArea {
+    private static final int MAXLENGTH = 100_000;
+
+    @Override
+    public void appendText(String text) {
+        super.appendText(text);
+        if (getLength() > MAXLENGTH) {
+            // Cut at the end of a line so the first line shown is whole
+            int cut = getText().indexOf('\n', getLength() - (MAXLENGTH / 2));
+            deleteText(0, cut == -1 ? getLength() - (MAXLENGTH / 2) : cut + 1);
+        }
+    }
+}
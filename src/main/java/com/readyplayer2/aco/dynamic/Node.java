@@ -1,55 +1,49 @@
 package com.readyplayer2.aco.dynamic;
 
+import com.readyplayer2.aco.dynamic.model.GraphNode;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 
 /**
+ * Draws a node of the simulation
  * @author ReadyPlayer2
  */
 public class Node extends Circle implements Serializable {
     // Serialize ID
     private static final long serialVersionUID = 6529685098267757690L;
     
-    private int nodeID;
-    private static final double SIZE = 4;
-    private int MAXCONNECTIONS = 5;
+    // Radius of a node, doubled for the source and destination
+    static final double SIZE = 4;
+    private transient GraphNode model;
     private boolean highlighted = false; // Purple
-    private boolean source = false; // Green
-    private boolean destination = false; // Red
-    private List<Node> connectedNodes = new ArrayList<>(MAXCONNECTIONS);
-    private List<Edge> connectedEdges = new ArrayList<>(MAXCONNECTIONS);
     
     /**
      * Constructor for Nodes
-     * @param id - Node id
-     * @param x - x position
-     * @param y - y position
+     * @param model - the node to draw
      */
-    public Node(int id, double x, double y) {
-        super(x, y, SIZE, Color.BLACK);
-        this.nodeID = id;
+    public Node(GraphNode model) {
+        super(model.getX(), model.getY(), SIZE, Color.BLACK);
+        this.model = model;
+        refresh();
+    }
+    
+    public GraphNode getModel() {
+        return model;
     }
 
     public int getNodeID() {
-        return nodeID;
+        return model.getNodeID();
     }
 
     public double getX() {
-        return super.getCenterX();
+        return model.getX();
     }
 
     public double getY() {
-        return super.getCenterY();
-    }
-
-    public int getConnectionsCount() {
-        return connectedNodes.size();
+        return model.getY();
     }
 
     public boolean isHighlighted() {
@@ -58,168 +52,74 @@ public class Node extends Circle implements Serializable {
 
     public void setHighlighted(boolean highlighted) {
         this.highlighted = highlighted;
-        
-        if (highlighted) {
-            super.setFill(Color.DARKMAGENTA);
-        } else {
-            // Set the node to its original colour
-            if (this.source) {
-                super.setFill(Color.GREEN);
-            } else if (this.destination) {
-                super.setFill(Color.RED);
-            } else {
-                super.setFill(Color.BLACK);    
-            }
-        }
+        refresh();
     }
 
     public boolean isSource() {
-        return source;
-    }
-
-    public void setSource(boolean source) {
-        this.source = source;
-
-        if (source) {
-            super.setFill(Color.GREEN);
-            super.setRadius(SIZE*2);
-        } else {
-            super.setFill(Color.BLACK);
-            super.setRadius(SIZE);
-        }
+        return model.isSource();
     }
 
     public boolean isDestination() {
-        return destination;
-    }
-
-    public void setDestination(boolean destination) {
-        this.destination = destination;
-
-        if (destination) {
-            super.setFill(Color.RED);
-            super.setRadius(SIZE*2);
-        } else {
-            super.setFill(Color.BLACK);
-            super.setRadius(SIZE);
-        }
-    }
-
-    public List<Node> getConnectedNodes() {
-        return connectedNodes;
-    }
-    
-    /**
-     * Mutually add the connection if not already connected
-     * @param node - the connected node to add
-     */
-    public void addConnectedNode(Node node) {
-        if (connectedNodes.size() != MAXCONNECTIONS) {
-            if (!connectedNodes.contains(node)) {
-                // Mutually add the connection
-                connectedNodes.add(node);
-                node.addConnectedNode(this);
-            }
-        }
+        return model.isDestination();
     }
     
     /**
-     * Mutually remove the connection if not already connected
-     * @param node - the connected node to remove
+     * Sets the colour and size to match the node's role
      */
-    public void removeConnectedNode(Node node) {
-        if (connectedNodes.size() > 0) {
-            if (connectedNodes.contains(node)) {
-                // Mutually removes the connection
-                connectedNodes.remove(node);
-                node.removeConnectedNode(this);
-            }
+    public void refresh() {
+        if (highlighted) {
+            super.setFill(Color.DARKMAGENTA);
+        } else if (model.isSource()) {
+            super.setFill(Color.GREEN);
+        } else if (model.isDestination()) {
+            super.setFill(Color.RED);
+        } else {
+            super.setFill(Color.BLACK);
         }
-    }
-
-    public List<Edge> getConnectedEdges() {
-        return connectedEdges;
-    }
-    
-    public void addConnectedEdge(Edge e) {
-        connectedEdges.add(e);
-    }
-    
-    public void removeConnectedEdge(Edge e) {
-        connectedEdges.remove(e);
+        
+        super.setRadius(radiusOf(model));
     }
     
     /**
-     * Custom serialization
-     * @param oos ObjectOutputStream
-     * @throws IOException required throw
+     * Gets the radius a node is drawn with, whether or not it has a view
+     * @param model - node
+     * @return radius
      */
-    private void writeObject(ObjectOutputStream oos) throws IOException {
-        oos.writeInt(nodeID);
-        oos.writeInt(MAXCONNECTIONS);
-        oos.writeBoolean(highlighted);
-        oos.writeBoolean(source);
-        oos.writeBoolean(destination);
-        
-        // Avoid StackOverflowException from deeply nested structures
-        oos.writeInt(connectedNodes.size());
-        for (Node n: connectedNodes) {
-            oos.writeObject(n);
-        }
-        
-        // Avoid StackOverflowException from deeply nested structures
-        oos.writeInt(connectedEdges.size());
-        for (Edge e: connectedEdges) {
-            oos.writeObject(e);
-        }
-        
-        oos.writeDouble(super.getCenterX());
-        oos.writeDouble(super.getCenterY());
+    static double radiusOf(GraphNode model) {
+        return (model.isSource() || model.isDestination()) ? SIZE*2 : SIZE;
     }
     
     /**
-     * Custom de-serialization
+     * Custom de-serialization, only used to read environments saved before
+     * the simulation was separated from the view
      * @param ois ObjectInputStream
      * @throws IOException required throw
      * @throws ClassNotFoundException required throw
      */
     private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
-        this.nodeID = ois.readInt();
-        this.MAXCONNECTIONS = ois.readInt();
-        this.highlighted = ois.readBoolean();
-        this.source = ois.readBoolean();
-        this.destination = ois.readBoolean();
+        int nodeID = ois.readInt();
+        int maxConnections = ois.readInt();
+        ois.readBoolean(); // Highlighting is not kept
+        boolean source = ois.readBoolean();
+        boolean destination = ois.readBoolean();
         
-        // Avoid StackOverflowException from deeply nested structures
+        // Create the model before reading connections so back references to
+        // this node already have one
+        this.model = new GraphNode(nodeID, 0, 0, maxConnections);
+        this.model.setSource(source);
+        this.model.setDestination(destination);
+        
+        // Connections are rebuilt from the edge list so are only skipped here
         int size = ois.readInt();
-        this.connectedNodes = new ArrayList<>(this.MAXCONNECTIONS);
         for (int i = 0; i < size; i++) {
-            this.connectedNodes.add((Node) ois.readObject());
+            ois.readObject();
         }
-        
-        // Avoid StackOverflowException from deeply nested structures
         size = ois.readInt();
-        this.connectedEdges = new ArrayList<>(this.MAXCONNECTIONS);
         for (int i = 0; i < size; i++) {
-            this.connectedEdges.add((Edge) ois.readObject());
+            ois.readObject();
         }
         
-        super.setCenterX(ois.readDouble());
-        super.setCenterY(ois.readDouble());
-        super.setRadius(SIZE); // Default
-        
-        // Correct colour and size
-        if (source) {
-            super.setFill(Color.GREEN);
-            super.setRadius(SIZE*2);
-        } else if (destination) {
-            super.setFill(Color.RED);
-            super.setRadius(SIZE*2);
-        } else if (highlighted) {
-            super.setFill(Color.DARKMAGENTA);
-        } else {
-            super.setFill(Color.BLACK);
-        }
+        this.model.setX(ois.readDouble());
+        this.model.setY(ois.readDouble());
     }
-    
 }
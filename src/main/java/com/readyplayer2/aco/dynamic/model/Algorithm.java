@@ -0,0 +1,10 @@
+package com.readyplayer2.aco.dynamic.model;
+
+/**
+ * Pheromone update rule used by a simulation
+ * @author ReadyPlayer2
+ */
+public enum Algorithm {
+    AS, // Ant System
+    MMAS // Max-Min Ant System
+}
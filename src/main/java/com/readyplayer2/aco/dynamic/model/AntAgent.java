@@ -0,0 +1,490 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Simulation side of an ant: position, route taken and edge choice. Nodes and
+ * edges are referred to by their index in the CsrGraph being walked.
+ * @author ReadyPlayer2
+ */
+public class AntAgent {
+    // Change this to increase distance travelled per location update
+    // NOTE: Max 10.0 or nodes will be missed!
+    public static final double PIXELSPERSTEP = 5.0;
+
+    private int antID;
+    private double x;
+    private double y;
+    private int currentNode;
+    private int currentEdge = -1;
+    private int nextNode = -1;
+    private int prevEdge = -1;
+    private boolean outwardBound;
+    private final IntStack edgesTaken = new IntStack();
+    private final IntStack nodesTaken = new IntStack();
+    // Cost of the route up to and including each edge in edgesTaken
+    private double[] routeCosts = new double[16];
+    // Depth of each node in nodesTaken, for finding loops
+    private final NodeDepthMap nodeDepths = new NodeDepthMap();
+
+    private double prevRouteLength;
+
+    // Event driven mode: when the ant left its current node and reaches the next
+    private double departTime;
+    private double arrivalTime;
+
+    // This ant's own random stream, so ants never share a generator
+    private SplittableRandom random;
+
+    /**
+     * Creates an ant at a node
+     * @param antID - ant id
+     * @param graph - graph being walked
+     * @param spawnLocation - node index to start at
+     * @param random - random stream for this ant's edge choices
+     */
+    public AntAgent(int antID, CsrGraph graph, int spawnLocation, SplittableRandom random) {
+        this.antID = antID;
+        this.random = random;
+        this.currentNode = spawnLocation;
+        this.outwardBound = true;
+        jumpTo(graph, spawnLocation);
+    }
+
+    public int getAntID() {
+        return antID;
+    }
+
+    /**
+     * Gets the x position of the centre of the ant
+     * @return x
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Gets the y position of the centre of the ant
+     * @return y
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Moves the ant onto a node
+     * @param graph - graph being walked
+     * @param node - node index to jump to
+     */
+    public void jumpTo(CsrGraph graph, int node) {
+        this.x = graph.getNodeX(node);
+        this.y = graph.getNodeY(node);
+    }
+
+    public int getCurrentNode() {
+        return currentNode;
+    }
+
+    public void setCurrentNode(int currentNode) {
+        this.currentNode = currentNode;
+    }
+
+    public int getCurrentEdge() {
+        return currentEdge;
+    }
+
+    public void setCurrentEdge(int currentEdge) {
+        this.currentEdge = currentEdge;
+    }
+
+    public int getNextNode() {
+        return nextNode;
+    }
+
+    public void setNextNode(int nextNode) {
+        this.nextNode = nextNode;
+    }
+
+    public int getPrevEdge() {
+        return prevEdge;
+    }
+
+    public void setPrevEdge(int prevEdge) {
+        this.prevEdge = prevEdge;
+    }
+
+    public boolean isOutwardBound() {
+        return outwardBound;
+    }
+
+    /**
+     * Sets the outwardBound switch
+     * @param outwardBound true if travelling to destination
+     */
+    public void setOutwardBound(boolean outwardBound) {
+        this.outwardBound = outwardBound;
+    }
+
+    public IntStack getEdgesTaken() {
+        return edgesTaken;
+    }
+
+    /**
+     * Pushes to the edges taken stack and adds its cost to the route cost
+     * @param e edge to push
+     * @param cost cost of the edge
+     */
+    public void pushEdgeTaken(int e, double cost) {
+        int depth = edgesTaken.size();
+        if (depth == routeCosts.length) {
+            routeCosts = Arrays.copyOf(routeCosts, depth * 2);
+        }
+        routeCosts[depth] = (depth == 0 ? 0 : routeCosts[depth - 1]) + cost;
+        this.edgesTaken.push(e);
+    }
+
+    /**
+     * Gets the cost of the edges on the edges taken stack, as they were
+     * when each edge was taken
+     * @return route cost
+     */
+    public double getRouteCost() {
+        int depth = edgesTaken.size();
+        return depth == 0 ? 0 : routeCosts[depth - 1];
+    }
+
+    /**
+     * Pops from the edges taken stack
+     * @return edge index
+     */
+    public int popEdgeTaken() {
+        return this.edgesTaken.pop();
+    }
+
+    /**
+     * Peeks at the edges taken stack
+     * @return edge index
+     */
+    public int peekEdgeTaken() {
+        return this.edgesTaken.peek();
+    }
+
+    public IntStack getNodesTaken() {
+        return nodesTaken;
+    }
+
+    /**
+     * Pushes to the node taken stack
+     * @param n node to push
+     */
+    public void pushNodeTaken(int n) {
+        nodeDepths.put(n, nodesTaken.size());
+        nodesTaken.push(n);
+    }
+
+    /**
+     * Pops from the node taken stack
+     * @return node index
+     */
+    public int popNodeTaken() {
+        return this.nodesTaken.pop();
+    }
+
+    /**
+     * Peeks at the node taken stack
+     * @return node index
+     */
+    public int peekNodeTaken() {
+        return this.nodesTaken.peek();
+    }
+
+    /**
+     * Gets the previous route length (cost)
+     * @return prevRouteLength
+     */
+    public double getPrevRouteLength() {
+        return prevRouteLength;
+    }
+
+    /**
+     * Sets the previous route length (cost)
+     * @param prevRouteLength the previous route cost
+     */
+    public void setPrevRouteLength(double prevRouteLength) {
+        this.prevRouteLength = prevRouteLength;
+    }
+
+    /**
+     * Chooses an edge to take using probability based upon pheromone values. If
+     * only one edge is available it is returned instantly. Should check for
+     * destination node being an option before calling this function!
+     * @param graph - graph being walked
+     * @param roulette - roulette table over the graph's pheromone
+     * @return edge index chosen
+     */
+    public int chooseEdge(CsrGraph graph, RouletteTable roulette) {
+        int first = graph.getFirstSlot(currentNode);
+        int degree = graph.getDegree(currentNode);
+
+        if (degree == 2 && currentNode != graph.getSource()) {
+            // Two options, but one is previous so only 1 valid option
+            for (int slot = first; slot < first + degree; slot++) {
+                if (graph.getSlotEdge(slot) != prevEdge) {
+                    return takeSlot(graph, slot);
+                }
+            }
+
+        } else if (degree > 1) {
+            // Previous edge is not valid if more options are available
+            int prevSlot = -1;
+            for (int slot = first; slot < first + degree; slot++) {
+                if (graph.getSlotEdge(slot) == prevEdge) {
+                    prevSlot = slot;
+                }
+            }
+
+            // Choose randomly, weighted by pheromone
+            double r = random.nextDouble();
+            return takeSlot(graph, roulette.select(currentNode, prevSlot, r));
+        } else {
+            // Dead end or only 1 option, take it!
+            int only = graph.getSlotEdge(first);
+            nextNode = graph.getTarget(first);
+
+            // Remove loops in the route
+            removeLoopsTaken(nextNode);
+
+            pushNodeTaken(nextNode);
+            pushEdgeTaken(only, graph.getCost(only));
+            currentEdge = only;
+            prevEdge = only;
+            return only;
+        }
+        return -1;
+    }
+
+    /**
+     * Sets the next node as the other end of the chosen slot, removes any
+     * loop this creates and pushes the node and edge onto the stacks
+     * @param graph - graph being walked
+     * @param slot - adjacency slot chosen
+     * @return edge index taken
+     */
+    private int takeSlot(CsrGraph graph, int slot) {
+        int e = graph.getSlotEdge(slot);
+        int n = graph.getTarget(slot);
+        nextNode = n;
+        prevEdge = e;
+
+        // Remove loops in the route
+        int replacementEdge = removeLoopsTaken(n);
+
+        if (replacementEdge != -1) {
+            e = replacementEdge;
+        }
+
+        pushNodeTaken(n);
+        pushEdgeTaken(e, graph.getCost(e));
+        currentEdge = e;
+        return e;
+    }
+
+    /**
+     * Before a new node is pushed on the stack, this function checks if it is
+     * already in the stack. If it is, the node stack is cut back to just
+     * below it, removing the loop. The edge stack is cut by the same amount,
+     * but the lowest edge removed is returned so that it can be re-added in
+     * chooseEdge().
+     *
+     * @param nodeAdded - the node index to check for
+     * @return edge index to add back onto the stack, or -1
+     */
+    public int removeLoopsTaken(int nodeAdded) {
+        int depth = getNodeDepth(nodeAdded);
+        if (depth == -1) {
+            return -1;
+        }
+
+        // Cut both stacks back by the length of the loop
+        int cut = nodesTaken.size() - depth;
+        nodesTaken.truncate(depth);
+        int edgeDepth = edgesTaken.size() - cut;
+        int edge = edgesTaken.get(edgeDepth);
+        edgesTaken.truncate(edgeDepth);
+        return edge;
+    }
+
+    /**
+     * Finds where a node is in the node stack
+     * @param node - node index
+     * @return depth in the stack or -1 if not in it
+     */
+    private int getNodeDepth(int node) {
+        int depth = nodeDepths.get(node);
+        // The map keeps popped nodes, so check the stack still holds it
+        if (depth != -1 && depth < nodesTaken.size() && nodesTaken.get(depth) == node) {
+            return depth;
+        }
+        return -1;
+    }
+
+    /**
+     * Updates the ants x and y position so that it travels towards the next node
+     * @param graph - graph being walked
+     */
+    public void travel(CsrGraph graph) {
+        // Travel towards the next node
+        double currentNodeX = graph.getNodeX(currentNode);
+        double currentNodeY = graph.getNodeY(currentNode);
+        double nextNodeX = graph.getNodeX(nextNode);
+        double nextNodeY = graph.getNodeY(nextNode);
+
+        // Difference in x/y position
+        double xDiff = Math.abs(currentNodeX - nextNodeX);
+        double yDiff = Math.abs(currentNodeY - nextNodeY);
+
+        // Pythagoras
+        double magnitude = Math.sqrt(xDiff * xDiff + yDiff * yDiff);
+
+        // Calculates the size of step + apply traffic
+        double traffic = graph.getTraffic(currentEdge);
+        double xStepSize = ((xDiff/magnitude) * PIXELSPERSTEP) / traffic;
+        double yStepSize = ((yDiff/magnitude) * PIXELSPERSTEP) / traffic;
+
+        // Move x direction
+        if (currentNodeX > nextNodeX) {
+            x -= xStepSize;
+        } else if (currentNodeX < nextNodeX) {
+            x += xStepSize;
+        }
+
+        // Move y direction
+        if (currentNodeY > nextNodeY) {
+            y -= yStepSize;
+        } else if (currentNodeY < nextNodeY) {
+            y += yStepSize;
+        }
+    }
+
+    public double getDepartTime() {
+        return departTime;
+    }
+
+    public double getArrivalTime() {
+        return arrivalTime;
+    }
+
+    /**
+     * Sets when the ant leaves its current node and arrives at the next
+     * @param departTime - time of leaving
+     * @param arrivalTime - time of arrival
+     */
+    public void setTravelTimes(double departTime, double arrivalTime) {
+        this.departTime = departTime;
+        this.arrivalTime = arrivalTime;
+    }
+
+    /**
+     * Sets the x and y position to where the ant is at a point in time,
+     * between leaving its current node and arriving at the next
+     * @param graph - graph being walked
+     * @param time - the time
+     */
+    public void moveTo(CsrGraph graph, double time) {
+        if (nextNode == -1 || arrivalTime <= departTime) {
+            jumpTo(graph, currentNode);
+            return;
+        }
+        double progress = Math.min(1.0, Math.max(0.0, (time - departTime) / (arrivalTime - departTime)));
+        x = graph.getNodeX(currentNode) + (graph.getNodeX(nextNode) - graph.getNodeX(currentNode)) * progress;
+        y = graph.getNodeY(currentNode) + (graph.getNodeY(nextNode) - graph.getNodeY(currentNode)) * progress;
+    }
+
+    /**
+     * Resets all the routing data - used when looped and at source node
+     */
+    public void reset() {
+        this.nodesTaken.clear();
+        this.edgesTaken.clear();
+        this.nodeDepths.clear();
+        this.prevEdge = -1;
+        this.nextNode = -1;
+    }
+
+    /**
+     * Moves the ant's nodes and edges over to a rebuilt graph, matching them
+     * by ID
+     * @param old - graph the ant was walking
+     * @param graph - rebuilt graph
+     * @return false if a node or edge the ant uses no longer exists
+     */
+    public boolean remap(CsrGraph old, CsrGraph graph) {
+        for (int i = 0; i < nodesTaken.size(); i++) {
+            int n = graph.getNodeIndex(old.getNodeID(nodesTaken.get(i)));
+            if (n == -1) {
+                return false;
+            }
+            nodesTaken.set(i, n);
+        }
+        nodeDepths.clear();
+        for (int i = 0; i < nodesTaken.size(); i++) {
+            nodeDepths.put(nodesTaken.get(i), i);
+        }
+        for (int i = 0; i < edgesTaken.size(); i++) {
+            int e = graph.getEdgeIndex(old.getEdgeID(edgesTaken.get(i)));
+            if (e == -1) {
+                return false;
+            }
+            edgesTaken.set(i, e);
+        }
+
+        currentNode = graph.getNodeIndex(old.getNodeID(currentNode));
+        if (currentNode == -1) {
+            return false;
+        }
+        if (nextNode != -1) {
+            nextNode = graph.getNodeIndex(old.getNodeID(nextNode));
+            if (nextNode == -1) {
+                return false;
+            }
+        }
+        if (currentEdge != -1) {
+            currentEdge = graph.getEdgeIndex(old.getEdgeID(currentEdge));
+            if (currentEdge == -1) {
+                return false;
+            }
+        }
+        if (prevEdge != -1) {
+            prevEdge = graph.getEdgeIndex(old.getEdgeID(prevEdge));
+        }
+        return true;
+    }
+
+    /**
+     * Reuses this ant as a new ant, e.g. after the simulation is reset
+     * @param antID - new ant id
+     * @param graph - graph being walked
+     * @param spawnLocation - node index to start at
+     * @param random - random stream for this ant's edge choices
+     */
+    public void reuse(int antID, CsrGraph graph, int spawnLocation, SplittableRandom random) {
+        this.antID = antID;
+        this.random = random;
+        this.prevRouteLength = 0;
+        respawn(graph, spawnLocation);
+    }
+
+    /**
+     * Puts the ant back at a node, outward bound with no route
+     * @param graph - graph being walked
+     * @param node - node index to respawn at
+     */
+    public void respawn(CsrGraph graph, int node) {
+        reset();
+        this.currentNode = node;
+        this.currentEdge = -1;
+        this.outwardBound = true;
+        jumpTo(graph, node);
+    }
+}
@@ -0,0 +1,90 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.util.Arrays;
+
+/**
+ * Priority queue of ant arrival times for the event driven mode. A binary
+ * min-heap over primitive arrays, holding the index of each ant in the
+ * simulation's ant list.
+ * @author ReadyPlayer2
+ */
+public class ArrivalQueue {
+    private double[] times = new double[16];
+    private int[] ants = new int[16];
+    private int size = 0;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds an arrival
+     * @param time - time of arrival
+     * @param ant - index of the ant
+     */
+    public void add(double time, int ant) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            ants = Arrays.copyOf(ants, size * 2);
+        }
+        // Sift up
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (times[parent] <= time) {
+                break;
+            }
+            times[i] = times[parent];
+            ants[i] = ants[parent];
+            i = parent;
+        }
+        times[i] = time;
+        ants[i] = ant;
+    }
+
+    /**
+     * Gets the time of the earliest arrival
+     * @return time
+     */
+    public double peekTime() {
+        return times[0];
+    }
+
+    /**
+     * Removes the earliest arrival
+     * @return index of the ant
+     */
+    public int poll() {
+        int ant = ants[0];
+        size--;
+        double time = times[size];
+        int last = ants[size];
+
+        // Sift down
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && times[child + 1] < times[child]) {
+                child++;
+            }
+            if (time <= times[child]) {
+                break;
+            }
+            times[i] = times[child];
+            ants[i] = ants[child];
+            i = child;
+        }
+        times[i] = time;
+        ants[i] = last;
+        return ant;
+    }
+}
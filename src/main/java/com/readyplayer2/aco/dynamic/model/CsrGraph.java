@@ -0,0 +1,353 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compressed sparse row (CSR) form of a graph, used by the simulation. Nodes
+ * and edges are referred to by index and all data is held in primitive
+ * arrays, so no per node/edge objects are needed.
+ *
+ * The structure is fixed once built - adding or removing nodes/edges means
+ * building a new CsrGraph. Traffic can still be changed in place.
+ *
+ * The edges of node n are in slots offsets[n] to offsets[n+1] - 1, where
+ * targets[slot] is the node at the other end and edges[slot] is the edge index.
+ * @author ReadyPlayer2
+ */
+public class CsrGraph {
+    private final int nodeCount;
+    private final int edgeCount;
+
+    // Nodes
+    private final int[] nodeIDs;
+    private final double[] nodeX;
+    private final double[] nodeY;
+
+    // Edges
+    private final int[] edgeIDs;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final double[] cost; // Without traffic
+    private final double[] traffic;
+
+    // Adjacency
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] edges;
+
+    // Lookup from ID to index, -1 if not present
+    private final int[] nodeIndexByID;
+    private final int[] edgeIndexByID;
+
+    private final int source;
+    private final int destination;
+    // Edge from each node to the source/destination, -1 if not connected,
+    // null if not set. Ants look these up on every arrival, and on imported
+    // networks the source and destination can have any degree.
+    private final int[] edgeToSource;
+    private final int[] edgeToDestination;
+
+    /**
+     * Builds the adjacency from the node and edge arrays. The arrays are used
+     * directly, not copied.
+     * @param nodeIDs - ID of each node
+     * @param nodeX - x position of each node
+     * @param nodeY - y position of each node
+     * @param edgeIDs - ID of each edge
+     * @param edgeFrom - index of the first node of each edge
+     * @param edgeTo - index of the second node of each edge
+     * @param cost - cost of each edge without traffic
+     * @param traffic - traffic on each edge
+     * @param source - index of the source node, -1 if not set
+     * @param destination - index of the destination node, -1 if not set
+     */
+    public CsrGraph(int[] nodeIDs, double[] nodeX, double[] nodeY,
+            int[] edgeIDs, int[] edgeFrom, int[] edgeTo, double[] cost, double[] traffic,
+            int source, int destination) {
+        this.nodeCount = nodeIDs.length;
+        this.edgeCount = edgeIDs.length;
+        this.nodeIDs = nodeIDs;
+        this.nodeX = nodeX;
+        this.nodeY = nodeY;
+        this.edgeIDs = edgeIDs;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.cost = cost;
+        this.traffic = traffic;
+        this.source = source;
+        this.destination = destination;
+
+        // Count the degree of each node, then turn the counts into offsets
+        this.offsets = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            offsets[edgeFrom[e] + 1]++;
+            offsets[edgeTo[e] + 1]++;
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            offsets[n + 1] += offsets[n];
+        }
+
+        // Fill the slots of each node in edge order
+        this.targets = new int[2 * edgeCount];
+        this.edges = new int[2 * edgeCount];
+        int[] next = Arrays.copyOf(offsets, nodeCount);
+        for (int e = 0; e < edgeCount; e++) {
+            int slot = next[edgeFrom[e]]++;
+            targets[slot] = edgeTo[e];
+            edges[slot] = e;
+            slot = next[edgeTo[e]]++;
+            targets[slot] = edgeFrom[e];
+            edges[slot] = e;
+        }
+
+        this.nodeIndexByID = indexByID(nodeIDs);
+        this.edgeIndexByID = indexByID(edgeIDs);
+        this.edgeToSource = edgesTo(source);
+        this.edgeToDestination = edgesTo(destination);
+    }
+
+    /**
+     * Builds a CsrGraph from the nodes and edges of a Graph. Node and edge
+     * indices follow the order of the graph's lists.
+     * @param graph - graph to convert
+     * @return the CsrGraph
+     */
+    public static CsrGraph fromGraph(Graph graph) {
+        List<GraphNode> nodeList = graph.getNodes();
+        List<GraphEdge> edgeList = graph.getEdges();
+
+        int[] nodeIDs = new int[nodeList.size()];
+        double[] nodeX = new double[nodeList.size()];
+        double[] nodeY = new double[nodeList.size()];
+        int source = -1;
+        int destination = -1;
+        for (int i = 0; i < nodeList.size(); i++) {
+            GraphNode n = nodeList.get(i);
+            nodeIDs[i] = n.getNodeID();
+            nodeX[i] = n.getX();
+            nodeY[i] = n.getY();
+            if (n.equals(graph.getSourceNode())) {
+                source = i;
+            } else if (n.equals(graph.getDestinationNode())) {
+                destination = i;
+            }
+        }
+        int[] nodeIndexByID = indexByID(nodeIDs);
+
+        int[] edgeIDs = new int[edgeList.size()];
+        int[] edgeFrom = new int[edgeList.size()];
+        int[] edgeTo = new int[edgeList.size()];
+        double[] cost = new double[edgeList.size()];
+        double[] traffic = new double[edgeList.size()];
+        for (int i = 0; i < edgeList.size(); i++) {
+            GraphEdge e = edgeList.get(i);
+            edgeIDs[i] = e.getEdgeID();
+            edgeFrom[i] = nodeIndexByID[e.getConnectedNodes().get(0).getNodeID()];
+            edgeTo[i] = nodeIndexByID[e.getConnectedNodes().get(1).getNodeID()];
+            cost[i] = e.getBaseCost();
+            traffic[i] = e.getTraffic();
+        }
+
+        return new CsrGraph(nodeIDs, nodeX, nodeY, edgeIDs, edgeFrom, edgeTo, cost, traffic, source, destination);
+    }
+
+    /**
+     * Creates a lookup array from each node to its edge to one node. Where
+     * there are several, the first in slot order is kept, as findEdge() finds.
+     * @param node - node index, or -1
+     * @return edge index for each node or -1, null if node is -1
+     */
+    private int[] edgesTo(int node) {
+        if (node == -1) {
+            return null;
+        }
+        int[] edgeTo = new int[nodeCount];
+        Arrays.fill(edgeTo, -1);
+        for (int slot = offsets[node]; slot < offsets[node + 1]; slot++) {
+            if (edgeTo[targets[slot]] == -1) {
+                edgeTo[targets[slot]] = edges[slot];
+            }
+        }
+        return edgeTo;
+    }
+
+    /**
+     * Creates a lookup array from ID to index
+     * @param ids - ID at each index
+     * @return array where array[id] is the index, or -1
+     */
+    private static int[] indexByID(int[] ids) {
+        int max = -1;
+        for (int id : ids) {
+            max = Math.max(max, id);
+        }
+        int[] index = new int[max + 1];
+        Arrays.fill(index, -1);
+        for (int i = 0; i < ids.length; i++) {
+            index[ids[i]] = i;
+        }
+        return index;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public int getDestination() {
+        return destination;
+    }
+
+    public int getNodeID(int node) {
+        return nodeIDs[node];
+    }
+
+    public double getNodeX(int node) {
+        return nodeX[node];
+    }
+
+    public double getNodeY(int node) {
+        return nodeY[node];
+    }
+
+    public int getEdgeID(int edge) {
+        return edgeIDs[edge];
+    }
+
+    public int getEdgeFrom(int edge) {
+        return edgeFrom[edge];
+    }
+
+    public int getEdgeTo(int edge) {
+        return edgeTo[edge];
+    }
+
+    /**
+     * Gets the node at the other end of an edge
+     * @param edge - edge index
+     * @param node - node index at one end
+     * @return node index at the other end
+     */
+    public int getOtherNode(int edge, int node) {
+        return edgeFrom[edge] == node ? edgeTo[edge] : edgeFrom[edge];
+    }
+
+    /**
+     * Gets the cost of an edge with traffic applied
+     * @param edge - edge index
+     * @return cost
+     */
+    public double getCost(int edge) {
+        return cost[edge] * traffic[edge];
+    }
+
+    /**
+     * Gets the cost of an edge without traffic (its length)
+     * @param edge - edge index
+     * @return cost
+     */
+    public double getBaseCost(int edge) {
+        return cost[edge];
+    }
+
+    public double getTraffic(int edge) {
+        return traffic[edge];
+    }
+
+    public void setTraffic(int edge, double value) {
+        traffic[edge] = value;
+    }
+
+    /**
+     * Number of edges connected to a node
+     * @param node - node index
+     * @return degree
+     */
+    public int getDegree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    /**
+     * First adjacency slot of a node
+     * @param node - node index
+     * @return slot
+     */
+    public int getFirstSlot(int node) {
+        return offsets[node];
+    }
+
+    /**
+     * Node at the other end of an adjacency slot
+     * @param slot - adjacency slot
+     * @return node index
+     */
+    public int getTarget(int slot) {
+        return targets[slot];
+    }
+
+    /**
+     * Edge of an adjacency slot
+     * @param slot - adjacency slot
+     * @return edge index
+     */
+    public int getSlotEdge(int slot) {
+        return edges[slot];
+    }
+
+    /**
+     * Finds the edge between two nodes. Constant time if either is the
+     * source or destination, otherwise the degree of the first node.
+     * @param a - first node index
+     * @param b - second node index
+     * @return edge index or -1 if not connected
+     */
+    public int findEdge(int a, int b) {
+        if (b == destination && edgeToDestination != null) {
+            return edgeToDestination[a];
+        } else if (a == destination && edgeToDestination != null) {
+            return edgeToDestination[b];
+        } else if (b == source && edgeToSource != null) {
+            return edgeToSource[a];
+        } else if (a == source && edgeToSource != null) {
+            return edgeToSource[b];
+        }
+        for (int slot = offsets[a]; slot < offsets[a + 1]; slot++) {
+            if (targets[slot] == b) {
+                return edges[slot];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the index of a node from its ID
+     * @param nodeID - node ID
+     * @return node index or -1 if not present
+     */
+    public int getNodeIndex(int nodeID) {
+        if (nodeID < 0 || nodeID >= nodeIndexByID.length) {
+            return -1;
+        }
+        return nodeIndexByID[nodeID];
+    }
+
+    /**
+     * Gets the index of an edge from its ID
+     * @param edgeID - edge ID
+     * @return edge index or -1 if not present
+     */
+    public int getEdgeIndex(int edgeID) {
+        if (edgeID < 0 || edgeID >= edgeIndexByID.length) {
+            return -1;
+        }
+        return edgeIndexByID[edgeID];
+    }
+}
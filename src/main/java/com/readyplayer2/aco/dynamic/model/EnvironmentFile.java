@@ -0,0 +1,439 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary environment file (.aco). Holds the graph as columns of primitives:
+ * a header, then node IDs and positions, then edge IDs, endpoints (as node
+ * positions in the file), cost, traffic and pheromone. Files are read through
+ * a direct buffer with bulk copies straight into the arrays, so no object is
+ * created per node or edge until the graph is built. The file is not mapped,
+ * as a mapping stays open until garbage collected and on Windows stops the
+ * same file being saved over.
+ *
+ * Layout (little endian):
+ * int magic, int version, double screenWidth, double screenHeight,
+ * int nodeCount, int edgeCount, int source, int destination,
+ * int[nodeCount] nodeID, double[nodeCount] x, double[nodeCount] y,
+ * int[edgeCount] edgeID, int[edgeCount] from, int[edgeCount] to,
+ * double[edgeCount] cost, double[edgeCount] traffic, double[edgeCount] pheromone
+ * @author ReadyPlayer2
+ */
+public class EnvironmentFile {
+    // "ACOE"
+    public static final int MAGIC = 0x41434F45;
+    public static final int VERSION = 1;
+    private static final int HEADERBYTES = 4 + 4 + 8 + 8 + 4 * 4;
+    // Size of the buffer used when reading and writing
+    private static final int BUFFERBYTES = 1 << 20;
+    // Largest ID allowed is the larger of this and 4 times the count, as
+    // Graph and CsrGraph hold an index array sized by the largest ID
+    private static final int MINIDLIMIT = 1 << 20;
+
+    private final double screenWidth;
+    private final double screenHeight;
+    private final int source;
+    private final int destination;
+    private final int[] nodeIDs;
+    private final double[] nodeX;
+    private final double[] nodeY;
+    private final int[] edgeIDs;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final double[] cost;
+    private final double[] traffic;
+    private final double[] pheromone;
+
+    /**
+     * Creates the file contents from arrays, which are used directly
+     * @param screenWidth - width of the screen the environment was made on
+     * @param screenHeight - height of the screen the environment was made on
+     * @param source - index of the source node or -1
+     * @param destination - index of the destination node or -1
+     * @param nodeIDs - node IDs
+     * @param nodeX - node x positions
+     * @param nodeY - node y positions
+     * @param edgeIDs - edge IDs
+     * @param edgeFrom - index of the first node of each edge
+     * @param edgeTo - index of the second node of each edge
+     * @param cost - base cost of each edge
+     * @param traffic - traffic on each edge
+     * @param pheromone - pheromone on each edge
+     */
+    public EnvironmentFile(double screenWidth, double screenHeight, int source, int destination,
+            int[] nodeIDs, double[] nodeX, double[] nodeY,
+            int[] edgeIDs, int[] edgeFrom, int[] edgeTo, double[] cost, double[] traffic, double[] pheromone) {
+        this.screenWidth = screenWidth;
+        this.screenHeight = screenHeight;
+        this.source = source;
+        this.destination = destination;
+        this.nodeIDs = nodeIDs;
+        this.nodeX = nodeX;
+        this.nodeY = nodeY;
+        this.edgeIDs = edgeIDs;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.cost = cost;
+        this.traffic = traffic;
+        this.pheromone = pheromone;
+    }
+
+    /**
+     * Copies a graph into file contents. Pheromone is taken from the edges,
+     * so Simulation.storePheromone should be called first.
+     * @param graph - graph to save
+     * @param screenWidth - width of the screen the environment was made on
+     * @param screenHeight - height of the screen the environment was made on
+     * @return file contents
+     */
+    public static EnvironmentFile fromGraph(Graph graph, double screenWidth, double screenHeight) {
+        List<GraphEdge> edges = graph.getEdges();
+        CsrGraph csr = CsrGraph.fromGraph(graph);
+
+        int nodeCount = csr.getNodeCount();
+        int[] nodeIDs = new int[nodeCount];
+        double[] nodeX = new double[nodeCount];
+        double[] nodeY = new double[nodeCount];
+        for (int n = 0; n < nodeCount; n++) {
+            nodeIDs[n] = csr.getNodeID(n);
+            nodeX[n] = csr.getNodeX(n);
+            nodeY[n] = csr.getNodeY(n);
+        }
+
+        int edgeCount = csr.getEdgeCount();
+        int[] edgeIDs = new int[edgeCount];
+        int[] edgeFrom = new int[edgeCount];
+        int[] edgeTo = new int[edgeCount];
+        double[] cost = new double[edgeCount];
+        double[] traffic = new double[edgeCount];
+        double[] pheromone = new double[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            edgeIDs[e] = csr.getEdgeID(e);
+            edgeFrom[e] = csr.getEdgeFrom(e);
+            edgeTo[e] = csr.getEdgeTo(e);
+            cost[e] = csr.getBaseCost(e);
+            traffic[e] = csr.getTraffic(e);
+            pheromone[e] = edges.get(e).getPheromone();
+        }
+        return new EnvironmentFile(screenWidth, screenHeight, csr.getSource(), csr.getDestination(),
+                nodeIDs, nodeX, nodeY, edgeIDs, edgeFrom, edgeTo, cost, traffic, pheromone);
+    }
+
+    /**
+     * Checks if a file starts with the binary environment header
+     * @param path - file
+     * @return true if it is a binary environment file
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isEnvironmentFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining() && channel.read(magic) != -1) {
+                // Keep reading until the magic number is complete
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Reads a binary environment file
+     * @param path - file
+     * @return file contents
+     * @throws IOException if the file cannot be read, or is not a valid
+     * environment file of a supported version
+     */
+    public static EnvironmentFile read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADERBYTES) {
+                throw new IOException("File is too short to be an environment file");
+            } else if (size > Integer.MAX_VALUE) {
+                throw new IOException("Environment files over 2GB are not supported");
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFERBYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            refill(channel, buffer);
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not an environment file");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported environment file version " + version);
+            }
+            double screenWidth = buffer.getDouble();
+            double screenHeight = buffer.getDouble();
+            int nodeCount = buffer.getInt();
+            int edgeCount = buffer.getInt();
+            int source = buffer.getInt();
+            int destination = buffer.getInt();
+            if (nodeCount < 0 || edgeCount < 0
+                    || size != HEADERBYTES + 20L * nodeCount + 36L * edgeCount) {
+                throw new IOException("Environment file is truncated or corrupt");
+            }
+
+            int[] nodeIDs = readInts(channel, buffer, nodeCount);
+            double[] nodeX = readDoubles(channel, buffer, nodeCount);
+            double[] nodeY = readDoubles(channel, buffer, nodeCount);
+            int[] edgeIDs = readInts(channel, buffer, edgeCount);
+            int[] edgeFrom = readInts(channel, buffer, edgeCount);
+            int[] edgeTo = readInts(channel, buffer, edgeCount);
+            double[] cost = readDoubles(channel, buffer, edgeCount);
+            double[] traffic = readDoubles(channel, buffer, edgeCount);
+            double[] pheromone = readDoubles(channel, buffer, edgeCount);
+
+            // IDs and endpoints are trusted from here on so check them once
+            if (!uniqueIDs(nodeIDs, idLimit(nodeCount)) || !uniqueIDs(edgeIDs, idLimit(edgeCount))) {
+                throw new IOException("Environment file is truncated or corrupt: invalid or duplicate IDs");
+            }
+            for (int e = 0; e < edgeCount; e++) {
+                if (edgeFrom[e] < 0 || edgeFrom[e] >= nodeCount || edgeTo[e] < 0 || edgeTo[e] >= nodeCount) {
+                    throw new IOException("Edge " + edgeIDs[e] + " has an invalid node");
+                }
+            }
+            if (source < -1 || source >= nodeCount || destination < -1 || destination >= nodeCount) {
+                throw new IOException("Invalid source or destination node");
+            }
+            return new EnvironmentFile(screenWidth, screenHeight, source, destination,
+                    nodeIDs, nodeX, nodeY, edgeIDs, edgeFrom, edgeTo, cost, traffic, pheromone);
+        }
+    }
+
+    /**
+     * Writes the file, replacing any existing file
+     * @param path - file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFERBYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putDouble(screenWidth);
+            buffer.putDouble(screenHeight);
+            buffer.putInt(nodeIDs.length);
+            buffer.putInt(edgeIDs.length);
+            buffer.putInt(source);
+            buffer.putInt(destination);
+
+            writeInts(channel, buffer, nodeIDs);
+            writeDoubles(channel, buffer, nodeX);
+            writeDoubles(channel, buffer, nodeY);
+            writeInts(channel, buffer, edgeIDs);
+            writeInts(channel, buffer, edgeFrom);
+            writeInts(channel, buffer, edgeTo);
+            writeDoubles(channel, buffer, cost);
+            writeDoubles(channel, buffer, traffic);
+            writeDoubles(channel, buffer, pheromone);
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Adds the nodes and edges to an editable graph, normally an empty one,
+     * scaling the node positions (e.g. for a different screen size). Edges
+     * keep their saved cost.
+     * @param graph - graph to add to
+     * @param scaleX - multiplier for x positions
+     * @param scaleY - multiplier for y positions
+     */
+    public void addTo(Graph graph, double scaleX, double scaleY) {
+        GraphNode[] nodes = new GraphNode[nodeIDs.length];
+        for (int n = 0; n < nodes.length; n++) {
+            nodes[n] = new GraphNode(nodeIDs[n], nodeX[n] * scaleX, nodeY[n] * scaleY);
+            nodes[n].setSource(n == source);
+            nodes[n].setDestination(n == destination);
+            graph.addLoadedNode(nodes[n]);
+        }
+        for (int e = 0; e < edgeIDs.length; e++) {
+            graph.addLoadedEdge(new GraphEdge(edgeIDs[e], nodes[edgeFrom[e]], nodes[edgeTo[e]], cost[e], pheromone[e], traffic[e]));
+        }
+    }
+
+    /**
+     * Builds the compiled graph directly from the arrays, for headless runs
+     * which do not need to edit the graph
+     * @return the compiled graph
+     */
+    public CsrGraph toCsrGraph() {
+        return new CsrGraph(nodeIDs, nodeX, nodeY, edgeIDs, edgeFrom, edgeTo, cost, traffic.clone(), source, destination);
+    }
+
+    public double getScreenWidth() {
+        return screenWidth;
+    }
+
+    public double getScreenHeight() {
+        return screenHeight;
+    }
+
+    public int getNodeCount() {
+        return nodeIDs.length;
+    }
+
+    public int getEdgeCount() {
+        return edgeIDs.length;
+    }
+
+    /**
+     * Gets the saved pheromone of an edge
+     * @param edge - edge position in the file (same as the CsrGraph index)
+     * @return pheromone
+     */
+    public double getPheromone(int edge) {
+        return pheromone[edge];
+    }
+
+    /**
+     * Checks IDs are not negative, below the limit and not repeated, as the
+     * Graph indexes nodes and edges by ID
+     * @param ids - IDs read from the file
+     * @param limit - IDs must be below this
+     * @return true if the IDs are valid
+     */
+    private static boolean uniqueIDs(int[] ids, int limit) {
+        int[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] < 0 || sorted[i] >= limit || (i > 0 && sorted[i] == sorted[i - 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the limit for the IDs of a number of nodes or edges. IDs left
+     * sparse by deleting nodes/edges stay well within it.
+     * @param count - number of nodes or edges
+     * @return IDs must be below this
+     */
+    private static int idLimit(int count) {
+        return (int) Math.min(Integer.MAX_VALUE - 1, Math.max(MINIDLIMIT, 4L * count));
+    }
+
+    /**
+     * Keeps the unread bytes in the buffer and fills the rest from the file
+     * @param channel - file
+     * @param buffer - read buffer, ready to be read from
+     * @throws IOException if the file cannot be read or ends early
+     */
+    private static void refill(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.compact();
+        while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+            // Keep reading until the buffer is full or the file ends
+        }
+        buffer.flip();
+        if (!buffer.hasRemaining()) {
+            throw new IOException("Environment file is truncated or corrupt");
+        }
+    }
+
+    /**
+     * Bulk reads an int column through the buffer
+     * @param channel - file
+     * @param buffer - read buffer, positioned at the column
+     * @param count - number of values
+     * @return values
+     * @throws IOException if the file cannot be read
+     */
+    private static int[] readInts(FileChannel channel, ByteBuffer buffer, int count) throws IOException {
+        int[] values = new int[count];
+        int i = 0;
+        while (i < count) {
+            if (buffer.remaining() < 4) {
+                refill(channel, buffer);
+            }
+            int n = Math.min(count - i, buffer.remaining() / 4);
+            buffer.asIntBuffer().get(values, i, n);
+            buffer.position(buffer.position() + n * 4);
+            i += n;
+        }
+        return values;
+    }
+
+    /**
+     * Bulk reads a double column through the buffer
+     * @param channel - file
+     * @param buffer - read buffer, positioned at the column
+     * @param count - number of values
+     * @return values
+     * @throws IOException if the file cannot be read
+     */
+    private static double[] readDoubles(FileChannel channel, ByteBuffer buffer, int count) throws IOException {
+        double[] values = new double[count];
+        int i = 0;
+        while (i < count) {
+            if (buffer.remaining() < 8) {
+                refill(channel, buffer);
+            }
+            int n = Math.min(count - i, buffer.remaining() / 8);
+            buffer.asDoubleBuffer().get(values, i, n);
+            buffer.position(buffer.position() + n * 8);
+            i += n;
+        }
+        return values;
+    }
+
+    /**
+     * Writes an int column through the buffer
+     * @param channel - file
+     * @param buffer - write buffer
+     * @param values - column
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+        int i = 0;
+        while (i < values.length) {
+            if (buffer.remaining() < 4) {
+                flush(channel, buffer);
+            }
+            int count = Math.min(values.length - i, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(values, i, count);
+            buffer.position(buffer.position() + count * 4);
+            i += count;
+        }
+    }
+
+    /**
+     * Writes a double column through the buffer
+     * @param channel - file
+     * @param buffer - write buffer
+     * @param values - column
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeDoubles(FileChannel channel, ByteBuffer buffer, double[] values) throws IOException {
+        int i = 0;
+        while (i < values.length) {
+            if (buffer.remaining() < 8) {
+                flush(channel, buffer);
+            }
+            int count = Math.min(values.length - i, buffer.remaining() / 8);
+            buffer.asDoubleBuffer().put(values, i, count);
+            buffer.position(buffer.position() + count * 8);
+            i += count;
+        }
+    }
+
+    /**
+     * Writes out everything in the buffer and empties it
+     * @param channel - file
+     * @param buffer - write buffer
+     * @throws IOException if the file cannot be written
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,262 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Takes log messages and events off the thread producing them and writes
+ * them out on a drain thread, so logging never holds up the simulation.
+ *
+ * Console messages and file log records go into EventRings, which are
+ * emptied every DRAININTERVAL: console messages are passed on in one batch
+ * and records are appended to the log file. Frequent events are not logged
+ * one by one but counted, and once a second each count is written as a
+ * single summary line.
+ * @author ReadyPlayer2
+ */
+public class EventLog {
+    private static final long DRAININTERVAL = 100_000_000; // ns
+    private static final long SUMMARYINTERVAL = 1_000_000_000; // ns
+    private static final int RINGCAPACITY = 4096;
+
+    private final EventRing<String> consoleRing = new EventRing<>(RINGCAPACITY);
+    private final EventRing<LogRecord> recordRing = new EventRing<>(RINGCAPACITY);
+    private final Consumer<String> console;
+
+    // Counted events, with the summary format for each
+    private final List<LongAdder> counters = new ArrayList<>();
+    private final List<String> summaries = new ArrayList<>();
+
+    // Log file, null if not logging to a file
+    private Path file;
+    private long maxFileBytes;
+    private final Formatter formatter = new SimpleFormatter();
+    private BufferedWriter writer;
+    private long fileBytes = 0;
+
+    private final Thread drainer = new Thread(this::drainLoop, "Event log");
+    private volatile boolean open = true;
+
+    /**
+     * Creates an event log, which starts passing on messages once started
+     * @param console - receives batches of console messages on the drain
+     * thread, each message ending in a new line
+     */
+    public EventLog(Consumer<String> console) {
+        this.console = console;
+        drainer.setDaemon(true);
+    }
+
+    /**
+     * Sets the file records from getFileHandler() are written to. Must be
+     * called before start().
+     * @param file - log file, replaced if it exists
+     * @param maxFileBytes - size at which the log file is moved to file.1
+     * and a new one started
+     * @throws IOException if the log file cannot be created
+     */
+    public void setFile(Path file, long maxFileBytes) throws IOException {
+        if (drainer.isAlive()) {
+            throw new IllegalStateException("Log file must be set before starting");
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+    }
+
+    /**
+     * Starts the drain thread
+     */
+    public void start() {
+        drainer.start();
+    }
+
+    /**
+     * Adds a console message, from any thread. Never blocks; if the drain
+     * thread has fallen far behind the message is dropped and counted.
+     * @param message - message, ending in a new line
+     */
+    public void console(String message) {
+        consoleRing.offer(message);
+    }
+
+    /**
+     * Creates a counter for an event which happens too often to log each
+     * time. Once a second a non-zero count is written to the console with
+     * the summary format and the count is reset. Counters must be created
+     * before events are counted.
+     * @param summary - String.format pattern for the count, e.g.
+     * "%d ants followed best route in last second\n"
+     * @return counter to increment when the event happens
+     */
+    public synchronized LongAdder counter(String summary) {
+        LongAdder counter = new LongAdder();
+        counters.add(counter);
+        summaries.add(summary);
+        return counter;
+    }
+
+    /**
+     * Gets a logging handler which passes records to the drain thread to be
+     * formatted and written to the log file
+     * @return handler
+     */
+    public Handler getFileHandler() {
+        return new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                if (open && isLoggable(record)) {
+                    recordRing.offer(record);
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Stops the drain thread after writing out everything logged so far, and
+     * closes the log file
+     */
+    public void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        LockSupport.unpark(drainer);
+        boolean interrupted = false;
+        while (drainer.isAlive()) {
+            try {
+                drainer.join();
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Empties the rings every DRAININTERVAL until closed
+     */
+    private void drainLoop() {
+        long lastSummary = System.nanoTime();
+        StringBuilder batch = new StringBuilder();
+        while (open) {
+            LockSupport.parkNanos(DRAININTERVAL);
+            long now = System.nanoTime();
+            if (now - lastSummary >= SUMMARYINTERVAL) {
+                summarise(batch);
+                lastSummary = now;
+            }
+            drain(batch);
+        }
+        // Whatever is left, including counts for the part second
+        summarise(batch);
+        drain(batch);
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ioe) {
+                writer = null;
+            }
+        }
+    }
+
+    /**
+     * Adds the summary lines for the counted events to a batch of console
+     * messages, and a line for any messages which were dropped
+     * @param batch - console messages
+     */
+    private void summarise(StringBuilder batch) {
+        synchronized (this) {
+            for (int i = 0; i < counters.size(); i++) {
+                long count = counters.get(i).sumThenReset();
+                if (count > 0) {
+                    batch.append(String.format(summaries.get(i), count));
+                }
+            }
+        }
+        long dropped = consoleRing.takeDropped() + recordRing.takeDropped();
+        if (dropped > 0) {
+            batch.append("[E]: ").append(dropped).append(" log messages dropped!\n");
+        }
+    }
+
+    /**
+     * Writes out the records and passes on the console messages waiting
+     * @param batch - console messages gathered so far, emptied afterwards
+     */
+    private void drain(StringBuilder batch) {
+        String message;
+        while ((message = consoleRing.poll()) != null) {
+            batch.append(message);
+        }
+        if (batch.length() > 0) {
+            console.accept(batch.toString());
+            batch.setLength(0);
+        }
+
+        if (writer == null) {
+            return;
+        }
+        LogRecord record;
+        boolean written = false;
+        try {
+            while ((record = recordRing.poll()) != null) {
+                String line = formatter.format(record);
+                writer.write(line);
+                fileBytes += line.length();
+                written = true;
+                if (fileBytes > maxFileBytes) {
+                    roll();
+                }
+            }
+            if (written) {
+                writer.flush();
+            }
+        } catch (IOException ioe) {
+            // Stop writing rather than failing on every record
+            console.accept("[E]: Could not write to log file: " + ioe.getMessage() + "\n");
+            try {
+                writer.close();
+            } catch (IOException closeException) {
+                // Already failing
+            }
+            writer = null;
+        }
+    }
+
+    /**
+     * Moves the full log file to file.1 and starts a new one
+     * @throws IOException if the file cannot be moved or created
+     */
+    private void roll() throws IOException {
+        writer.close();
+        Path old = Paths.get(file.toString() + ".1");
+        Files.move(file, old, StandardCopyOption.REPLACE_EXISTING);
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        fileBytes = 0;
+    }
+}
@@ -0,0 +1,109 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded queue which any number of threads can add to and one thread takes
+ * from, without locks. Adding never blocks: when the ring is full the item is
+ * dropped and counted instead, so a busy producer cannot be held up by a slow
+ * consumer.
+ *
+ * Each slot has a sequence number saying whose turn it is: a producer claims
+ * a position by moving the tail on, fills the slot, then marks it ready for
+ * the consumer, which empties it and marks it free for the next lap.
+ * @author ReadyPlayer2
+ */
+public class EventRing<T> {
+    private final Object[] items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    // Next position to add at, shared by the producers
+    private final AtomicLong tail = new AtomicLong();
+    // Next position to take from, only used by the consumer
+    private long head = 0;
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Creates an empty ring
+     * @param capacity - most items held at once, rounded up to a power of 2
+     */
+    public EventRing(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        items = new Object[size];
+        sequences = new AtomicLongArray(size);
+        mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int getCapacity() {
+        return items.length;
+    }
+
+    /**
+     * Adds an item, from any thread
+     * @param item - item to add, not null
+     * @return false if the ring was full and the item was dropped
+     */
+    public boolean offer(T item) {
+        long pos = tail.get();
+        while (true) {
+            long diff = sequences.get((int) pos & mask) - pos;
+            if (diff == 0) {
+                // Slot is free for this lap, try to claim it
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    break;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // Slot still holds an item from the previous lap
+                dropped.incrementAndGet();
+                return false;
+            } else {
+                // Another producer claimed it first
+                pos = tail.get();
+            }
+        }
+        int slot = (int) pos & mask;
+        items[slot] = item;
+        // Publishes the item to the consumer
+        sequences.lazySet(slot, pos + 1);
+        return true;
+    }
+
+    /**
+     * Takes the oldest item, only from the consuming thread
+     * @return item, or null if the ring is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        int slot = (int) head & mask;
+        if (sequences.get(slot) != head + 1) {
+            return null;
+        }
+        T item = (T) items[slot];
+        items[slot] = null;
+        // Frees the slot for the next lap
+        sequences.lazySet(slot, head + items.length);
+        head++;
+        return item;
+    }
+
+    /**
+     * Gets the number of items dropped since the last call, and starts
+     * counting again
+     * @return items dropped
+     */
+    public long takeDropped() {
+        return dropped.getAndSet(0);
+    }
+}
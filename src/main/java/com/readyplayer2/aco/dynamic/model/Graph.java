@@ -0,0 +1,447 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Holds the nodes and edges of an environment along with the source and
+ * destination pointers. All structural changes go through here so the
+ * connections on both nodes and edges stay consistent. Nodes and edges are
+ * also indexed by ID and edges by their pair of nodes, so lookups, membership
+ * checks and removals do not scan the lists.
+ * @author ReadyPlayer2
+ */
+public class Graph {
+    private final int MAXCONNECTIONS = 5;
+    // Nodes this far apart are never joined by generateClosestEdges
+    private final double MAXDISTANCE = 9999;
+    // Positions per unit area a full PoissonDiskSampler holds, times spacing squared
+    private final double SAMPLEDENSITY = 0.58;
+
+    // Incrementable counters for unique IDs
+    private int uniqueNodeID = 0;
+    private int uniqueEdgeID = 0;
+
+    // Lists to hold nodes and edges
+    private final List<GraphNode> nodes = new ArrayList<>();
+    private final List<GraphEdge> edges = new ArrayList<>();
+
+    // Position in the lists by ID, -1 if there is no node/edge with that ID
+    private int[] nodePosition = new int[0];
+    private int[] edgePosition = new int[0];
+    // Edges by the IDs of their two nodes, see pairKey
+    private final Map<Long, GraphEdge> edgesByPair = new HashMap<>();
+
+    // Pointers to source and destination nodes
+    private GraphNode sourceNode = null;
+    private GraphNode destNode = null;
+
+    // Incremented on every structural change so copies (e.g. CsrGraph) know when to rebuild
+    private int version = 0;
+
+    /**
+     * Gets the nodes. Removing a node moves the last node into its place.
+     * The list must only be changed through this class.
+     * @return nodes
+     */
+    public List<GraphNode> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the edges. Removing an edge moves the last edge into its place.
+     * The list must only be changed through this class.
+     * @return edges
+     */
+    public List<GraphEdge> getEdges() {
+        return edges;
+    }
+
+    /**
+     * Gets a node by its ID
+     * @param id - node ID
+     * @return the node, or null if there is none with that ID
+     */
+    public GraphNode getNode(int id) {
+        int position = id >= 0 && id < nodePosition.length ? nodePosition[id] : -1;
+        return position == -1 ? null : nodes.get(position);
+    }
+
+    /**
+     * Gets an edge by its ID
+     * @param id - edge ID
+     * @return the edge, or null if there is none with that ID
+     */
+    public GraphEdge getEdge(int id) {
+        int position = id >= 0 && id < edgePosition.length ? edgePosition[id] : -1;
+        return position == -1 ? null : edges.get(position);
+    }
+
+    /**
+     * Gets the edge between two nodes, in either direction
+     * @param a - first node
+     * @param b - second node
+     * @return the edge, or null if they are not connected
+     */
+    public GraphEdge getEdge(GraphNode a, GraphNode b) {
+        return edgesByPair.get(pairKey(a, b));
+    }
+
+    /**
+     * Checks if a node is part of this graph
+     * @param n - node
+     * @return true if the node is in the graph
+     */
+    public boolean containsNode(GraphNode n) {
+        return getNode(n.getNodeID()) == n;
+    }
+
+    /**
+     * Checks if an edge is part of this graph
+     * @param e - edge
+     * @return true if the edge is in the graph
+     */
+    public boolean containsEdge(GraphEdge e) {
+        return getEdge(e.getEdgeID()) == e;
+    }
+
+    public int getMaxConnections() {
+        return MAXCONNECTIONS;
+    }
+
+    /**
+     * Gets the structure version, which changes whenever nodes, edges or the
+     * source/destination change
+     * @return version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public GraphNode getSourceNode() {
+        return sourceNode;
+    }
+
+    /**
+     * Sets the source node, removing the flag from the previous source
+     * @param n - new source or null to remove
+     */
+    public void setSourceNode(GraphNode n) {
+        if (sourceNode != null) {
+            sourceNode.setSource(false);
+        }
+        sourceNode = n;
+        if (n != null) {
+            n.setSource(true);
+        }
+        version++;
+    }
+
+    public GraphNode getDestinationNode() {
+        return destNode;
+    }
+
+    /**
+     * Sets the destination node, removing the flag from the previous destination
+     * @param n - new destination or null to remove
+     */
+    public void setDestinationNode(GraphNode n) {
+        if (destNode != null) {
+            destNode.setDestination(false);
+        }
+        destNode = n;
+        if (n != null) {
+            n.setDestination(true);
+        }
+        version++;
+    }
+
+    /**
+     * Removes all nodes and edges and resets the ID counters
+     */
+    public void clear() {
+        nodes.clear();
+        edges.clear();
+        nodePosition = new int[0];
+        edgePosition = new int[0];
+        edgesByPair.clear();
+        sourceNode = null;
+        destNode = null;
+        uniqueNodeID = 0;
+        uniqueEdgeID = 0;
+        version++;
+    }
+
+    /**
+     * Creates a new node at the given position
+     * @param x - x position
+     * @param y - y position
+     * @return the new node
+     */
+    public GraphNode addNode(double x, double y) {
+        GraphNode n = new GraphNode(uniqueNodeID, x, y);
+        uniqueNodeID++;
+        nodePosition = setPosition(nodePosition, n.getNodeID(), nodes.size());
+        nodes.add(n);
+        version++;
+        return n;
+    }
+
+    /**
+     * Adds an existing node (e.g. loaded from file), keeping its ID
+     * @param n - node to add
+     */
+    public void addLoadedNode(GraphNode n) {
+        nodePosition = setPosition(nodePosition, n.getNodeID(), nodes.size());
+        nodes.add(n);
+        if (n.isSource()) {
+            sourceNode = n;
+        } else if (n.isDestination()) {
+            destNode = n;
+        }
+        // Make sure the node ID counter is correct
+        uniqueNodeID = Math.max(uniqueNodeID, n.getNodeID() + 1);
+        version++;
+    }
+
+    /**
+     * Checks if there is an edge between the two nodes
+     * @param a - first node
+     * @param b - second node
+     * @return true if connected
+     */
+    public boolean isConnected(GraphNode a, GraphNode b) {
+        return edgesByPair.containsKey(pairKey(a, b));
+    }
+
+    /**
+     * Checks if the node can take another connection
+     * @param n - node
+     * @return true if below the connection limit
+     */
+    public boolean hasFreeConnection(GraphNode n) {
+        return n.getConnectionsCount() != MAXCONNECTIONS;
+    }
+
+    /**
+     * Adds an edge between the source and destination and creates a connection
+     * between the two nodes, unless they are already connected or either has
+     * reached the connection limit
+     * @param source - start node
+     * @param destination - end node
+     * @return the new edge, or null if no edge was added
+     */
+    public GraphEdge addEdge(GraphNode source, GraphNode destination) {
+        if (isConnected(source, destination) || !hasFreeConnection(source) || !hasFreeConnection(destination)) {
+            return null;
+        }
+
+        GraphEdge e = new GraphEdge(uniqueEdgeID, source, destination);
+        uniqueEdgeID++;
+        connect(e);
+        version++;
+        return e;
+    }
+
+    /**
+     * Adds an existing edge (e.g. loaded from file), keeping its ID. Edges
+     * whose nodes are not part of this graph are ignored.
+     * @param e - edge to add
+     * @return true if added
+     */
+    public boolean addLoadedEdge(GraphEdge e) {
+        for (GraphNode n : e.getConnectedNodes()) {
+            if (!containsNode(n)) {
+                return false;
+            }
+        }
+        connect(e);
+        // Make sure the edge ID counter is correct
+        uniqueEdgeID = Math.max(uniqueEdgeID, e.getEdgeID() + 1);
+        version++;
+        return true;
+    }
+
+    /**
+     * Removes a node and all of its connected edges
+     * @param n - node to remove
+     * @return the edges removed along with the node
+     */
+    public List<GraphEdge> removeNode(GraphNode n) {
+        if (!containsNode(n)) {
+            return new ArrayList<>();
+        }
+        List<GraphEdge> removed = new ArrayList<>(n.getConnectedEdges());
+        for (GraphEdge e : removed) {
+            removeEdge(e);
+        }
+
+        if (n.equals(sourceNode)) {
+            sourceNode = null;
+        } else if (n.equals(destNode)) {
+            destNode = null;
+        }
+        // Move the last node into its place
+        int position = nodePosition[n.getNodeID()];
+        GraphNode last = nodes.remove(nodes.size() - 1);
+        if (position < nodes.size()) {
+            nodes.set(position, last);
+            nodePosition[last.getNodeID()] = position;
+        }
+        nodePosition[n.getNodeID()] = -1;
+        version++;
+        return removed;
+    }
+
+    /**
+     * Removes an edge and the connection between its two nodes
+     * @param e - edge to remove
+     */
+    public void removeEdge(GraphEdge e) {
+        if (!containsEdge(e)) {
+            return;
+        }
+        GraphNode nodeOne = e.getConnectedNodes().get(0);
+        GraphNode nodeTwo = e.getConnectedNodes().get(1);
+
+        // Remove the edge and each other from connections
+        nodeOne.removeConnectedNode(nodeTwo);
+        nodeOne.removeConnectedEdge(e);
+        nodeTwo.removeConnectedEdge(e);
+
+        // Move the last edge into its place
+        int position = edgePosition[e.getEdgeID()];
+        GraphEdge last = edges.remove(edges.size() - 1);
+        if (position < edges.size()) {
+            edges.set(position, last);
+            edgePosition[last.getEdgeID()] = position;
+        }
+        edgePosition[e.getEdgeID()] = -1;
+        Long key = pairKey(nodeOne, nodeTwo);
+        if (edgesByPair.get(key) == e) {
+            edgesByPair.remove(key);
+        }
+        version++;
+    }
+
+    /**
+     * Adds nodes at random positions in the area from (0, 0) to (width,
+     * height), at least minDistance from each other and from existing nodes
+     * @param count - number of nodes wanted
+     * @param width - width of the area
+     * @param height - height of the area
+     * @param minDistance - minimum distance between nodes
+     * @param random - random source, the same seed gives the same positions
+     * @return the nodes added, fewer than count if the area is full
+     */
+    public List<GraphNode> addRandomNodes(int count, double width, double height, double minDistance, SplittableRandom random) {
+        // Space the nodes out further than needed so the sampler only
+        // generates about 1.5 times as many positions as wanted, moving closer
+        // if that leaves too few
+        double spacing = Math.max(minDistance, Math.sqrt(SAMPLEDENSITY * width * height / (1.5 * (nodes.size() + count))));
+        double[] positions;
+        while (true) {
+            PoissonDiskSampler sampler = new PoissonDiskSampler(width, height, spacing);
+            for (GraphNode n : nodes) {
+                sampler.addExisting(n.getX(), n.getY());
+            }
+            positions = sampler.generate(count, random);
+            if (positions.length / 2 >= count || spacing == minDistance) {
+                break;
+            }
+            spacing = Math.max(minDistance, spacing * 0.7);
+        }
+
+        List<GraphNode> added = new ArrayList<>(positions.length / 2);
+        for (int i = 0; i < positions.length; i += 2) {
+            added.add(addNode(positions[i], positions[i + 1]));
+        }
+        return added;
+    }
+
+    /**
+     * For every node that does not already have MAXCONNECTIONS, creates edges
+     * to the 3 closest nodes which have less than MAXCONNECTIONS. Uses a
+     * NodeGrid so only nodes near each element are checked.
+     * @return the edges added
+     */
+    public List<GraphEdge> generateClosestEdges() {
+        List<GraphEdge> added = new ArrayList<>();
+        List<GraphNode> snapshot = new ArrayList<>(nodes);
+        NodeGrid grid = new NodeGrid(snapshot);
+        // Indexes of the closest 3 valid nodes
+        int[] closest = new int[3];
+
+        for (int i = 0; i < snapshot.size(); i++) {
+            GraphNode element = snapshot.get(i);
+            // If the element does not already have MAXCONNECTIONS
+            if (hasFreeConnection(element)) {
+                final int self = i;
+                // n is not itself & n has not got MAXCONNECTIONS
+                int found = grid.nearest(element.getX(), element.getY(), closest.length, MAXDISTANCE,
+                        n -> n != self && hasFreeConnection(snapshot.get(n)), closest);
+                // Create the edges between the element and the closest nodes
+                for (int c = 0; c < found; c++) {
+                    GraphEdge e = addEdge(element, snapshot.get(closest[c]));
+                    if (e != null) {
+                        added.add(e);
+                    }
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Wires an edge into the connection lists of both of its nodes and adds
+     * it to the edge list and indexes
+     * @param e - edge
+     */
+    private void connect(GraphEdge e) {
+        GraphNode source = e.getConnectedNodes().get(0);
+        GraphNode destination = e.getConnectedNodes().get(1);
+
+        // Mutually add the node connections
+        destination.addConnectedNode(source);
+        // Add the edge to both nodes
+        source.addConnectedEdge(e);
+        destination.addConnectedEdge(e);
+
+        edgePosition = setPosition(edgePosition, e.getEdgeID(), edges.size());
+        edges.add(e);
+        edgesByPair.put(pairKey(source, destination), e);
+    }
+
+    /**
+     * Records the position of an ID, growing the index if needed
+     * @param positions - position index
+     * @param id - node or edge ID
+     * @param position - position in the list
+     * @return the index, which may be a new larger array
+     */
+    private static int[] setPosition(int[] positions, int id, int position) {
+        if (id >= positions.length) {
+            int oldLength = positions.length;
+            positions = Arrays.copyOf(positions, Math.max(id + 1, oldLength * 2));
+            Arrays.fill(positions, oldLength, positions.length, -1);
+        }
+        positions[id] = position;
+        return positions;
+    }
+
+    /**
+     * Gets the key of the pair of nodes of an edge, the same in either order
+     * @param a - first node
+     * @param b - second node
+     * @return key
+     */
+    private static Long pairKey(GraphNode a, GraphNode b) {
+        long low = Math.min(a.getNodeID(), b.getNodeID());
+        long high = Math.max(a.getNodeID(), b.getNodeID());
+        return (high << 32) | low;
+    }
+}
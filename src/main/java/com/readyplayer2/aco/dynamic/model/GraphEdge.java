@@ -0,0 +1,172 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Editable edge of a Graph: end points, cost, traffic and stored pheromone.
+ * @author ReadyPlayer2
+ */
+public class GraphEdge implements Serializable {
+    // Serialize ID
+    private static final long serialVersionUID = 6529685098267757690L;
+
+    private int edgeID;
+    private List<GraphNode> connectedNodes = new ArrayList<>(2); // Edge is between 2 nodes
+    private double pheromone;
+    private double cost;
+    private double traffic;
+
+    /**
+     * Constructor for new edges, cost is the length of the edge
+     * @param id - edge id
+     * @param source - start node
+     * @param destination - end node
+     */
+    public GraphEdge(int id, GraphNode source, GraphNode destination) {
+        this.edgeID = id;
+        this.connectedNodes.add(source);
+        this.connectedNodes.add(destination);
+        this.cost = source.distanceTo(destination.getX(), destination.getY());
+        this.pheromone = 1.0;
+        this.traffic = 1.0;
+    }
+
+    /**
+     * Constructor for edges with existing state (e.g. loaded from file)
+     * @param id - edge id
+     * @param source - start node
+     * @param destination - end node
+     * @param cost - base cost of the edge
+     * @param pheromone - pheromone on the edge
+     * @param traffic - traffic on the edge
+     */
+    public GraphEdge(int id, GraphNode source, GraphNode destination, double cost, double pheromone, double traffic) {
+        this.edgeID = id;
+        this.connectedNodes.add(source);
+        this.connectedNodes.add(destination);
+        this.cost = cost;
+        this.pheromone = pheromone;
+        this.traffic = traffic;
+    }
+
+    public int getEdgeID() {
+        return edgeID;
+    }
+
+    public List<GraphNode> getConnectedNodes() {
+        return connectedNodes;
+    }
+
+    /**
+     * Gets the node at the other end of this edge
+     * @param n - one end of this edge
+     * @return the other end
+     */
+    public GraphNode getOtherNode(GraphNode n) {
+        if (connectedNodes.get(0).equals(n)) {
+            return connectedNodes.get(1);
+        }
+        return connectedNodes.get(0);
+    }
+
+    public double getStartX() {
+        return connectedNodes.get(0).getX();
+    }
+
+    public double getStartY() {
+        return connectedNodes.get(0).getY();
+    }
+
+    public double getEndX() {
+        return connectedNodes.get(1).getX();
+    }
+
+    public double getEndY() {
+        return connectedNodes.get(1).getY();
+    }
+
+    /**
+     * Gets the pheromone stored with this edge. While a simulation is running
+     * the current values are held by its PheromoneField instead.
+     * @return pheromone
+     */
+    public double getPheromone() {
+        return pheromone;
+    }
+
+    public void setPheromone(double pheromone) {
+        this.pheromone = pheromone;
+    }
+
+    public double getCost() {
+        return cost * getTraffic();
+    }
+
+    /**
+     * Gets the cost of this edge without traffic applied (its length)
+     * @return base cost
+     */
+    public double getBaseCost() {
+        return cost;
+    }
+
+    public double getTraffic() {
+        return traffic;
+    }
+
+    public void setTraffic(double traffic) {
+        this.traffic = traffic;
+    }
+
+    public void addTraffic(double amount) {
+        this.traffic += amount;
+    }
+
+    public void reduceTraffic(double amount) {
+        if (this.traffic - amount > 1.0) {
+            this.traffic -= amount;
+        } else {
+            this.traffic = 1.0;
+        }
+    }
+
+    /**
+     * Custom serialization. Nodes are written before edges so the connected
+     * nodes are written as back references.
+     * @param oos ObjectOutputStream
+     * @throws IOException required throw
+     */
+    private void writeObject(ObjectOutputStream oos) throws IOException {
+        oos.writeInt(edgeID);
+        oos.writeInt(connectedNodes.size());
+        for (GraphNode n : connectedNodes) {
+            oos.writeObject(n);
+        }
+        oos.writeDouble(pheromone);
+        oos.writeDouble(cost);
+        oos.writeDouble(traffic);
+    }
+
+    /**
+     * Custom de-serialization
+     * @param ois ObjectInputStream
+     * @throws IOException required throw
+     * @throws ClassNotFoundException required throw
+     */
+    private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+        this.edgeID = ois.readInt();
+        int size = ois.readInt();
+        this.connectedNodes = new ArrayList<>(2);
+        for (int i = 0; i < size; i++) {
+            this.connectedNodes.add((GraphNode) ois.readObject());
+        }
+        this.pheromone = ois.readDouble();
+        this.cost = ois.readDouble();
+        this.traffic = ois.readDouble();
+    }
+}
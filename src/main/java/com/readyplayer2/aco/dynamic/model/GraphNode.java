@@ -0,0 +1,183 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simulation side of a node: position, role and connections. Has no knowledge
+ * of how (or if) it is drawn.
+ * @author ReadyPlayer2
+ */
+public class GraphNode implements Serializable {
+    // Serialize ID
+    private static final long serialVersionUID = 6529685098267757690L;
+
+    private int nodeID;
+    private double x;
+    private double y;
+    private int MAXCONNECTIONS = 5;
+    private boolean source = false;
+    private boolean destination = false;
+    private List<GraphNode> connectedNodes = new ArrayList<>(MAXCONNECTIONS);
+    private List<GraphEdge> connectedEdges = new ArrayList<>(MAXCONNECTIONS);
+
+    /**
+     * Constructor for nodes
+     * @param id - node id
+     * @param x - x position
+     * @param y - y position
+     */
+    public GraphNode(int id, double x, double y) {
+        this.nodeID = id;
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Constructor for nodes with a non-default connection limit
+     * @param id - node id
+     * @param x - x position
+     * @param y - y position
+     * @param maxConnections - max number of connected nodes
+     */
+    public GraphNode(int id, double x, double y, int maxConnections) {
+        this(id, x, y);
+        this.MAXCONNECTIONS = maxConnections;
+    }
+
+    public int getNodeID() {
+        return nodeID;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public void setX(double x) {
+        this.x = x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public void setY(double y) {
+        this.y = y;
+    }
+
+    public int getMaxConnections() {
+        return MAXCONNECTIONS;
+    }
+
+    public int getConnectionsCount() {
+        return connectedNodes.size();
+    }
+
+    public boolean isSource() {
+        return source;
+    }
+
+    public void setSource(boolean source) {
+        this.source = source;
+    }
+
+    public boolean isDestination() {
+        return destination;
+    }
+
+    public void setDestination(boolean destination) {
+        this.destination = destination;
+    }
+
+    public List<GraphNode> getConnectedNodes() {
+        return connectedNodes;
+    }
+
+    /**
+     * Mutually add the connection if not already connected
+     * @param node - the connected node to add
+     */
+    public void addConnectedNode(GraphNode node) {
+        if (connectedNodes.size() != MAXCONNECTIONS) {
+            if (!connectedNodes.contains(node)) {
+                // Mutually add the connection
+                connectedNodes.add(node);
+                node.addConnectedNode(this);
+            }
+        }
+    }
+
+    /**
+     * Mutually remove the connection if connected
+     * @param node - the connected node to remove
+     */
+    public void removeConnectedNode(GraphNode node) {
+        if (connectedNodes.size() > 0) {
+            if (connectedNodes.contains(node)) {
+                // Mutually removes the connection
+                connectedNodes.remove(node);
+                node.removeConnectedNode(this);
+            }
+        }
+    }
+
+    public List<GraphEdge> getConnectedEdges() {
+        return connectedEdges;
+    }
+
+    public void addConnectedEdge(GraphEdge e) {
+        connectedEdges.add(e);
+    }
+
+    public void removeConnectedEdge(GraphEdge e) {
+        connectedEdges.remove(e);
+    }
+
+    /**
+     * Gets the Euclidean distance between this node and a point
+     * @param x - x position
+     * @param y - y position
+     * @return distance
+     */
+    public double distanceTo(double x, double y) {
+        double dx = this.x - x;
+        double dy = this.y - y;
+        return Math.sqrt((dx * dx) + (dy * dy));
+    }
+
+    /**
+     * Custom serialization. Connections are not written, they are rebuilt
+     * from the edges when an environment is loaded.
+     * @param oos ObjectOutputStream
+     * @throws IOException required throw
+     */
+    private void writeObject(ObjectOutputStream oos) throws IOException {
+        oos.writeInt(nodeID);
+        oos.writeInt(MAXCONNECTIONS);
+        oos.writeBoolean(source);
+        oos.writeBoolean(destination);
+        oos.writeDouble(x);
+        oos.writeDouble(y);
+    }
+
+    /**
+     * Custom de-serialization
+     * @param ois ObjectInputStream
+     * @throws IOException required throw
+     * @throws ClassNotFoundException required throw
+     */
+    private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+        this.nodeID = ois.readInt();
+        this.MAXCONNECTIONS = ois.readInt();
+        this.source = ois.readBoolean();
+        this.destination = ois.readBoolean();
+        this.x = ois.readDouble();
+        this.y = ois.readDouble();
+        this.connectedNodes = new ArrayList<>(this.MAXCONNECTIONS);
+        this.connectedEdges = new ArrayList<>(this.MAXCONNECTIONS);
+    }
+}
@@ -0,0 +1,73 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.util.Arrays;
+
+/**
+ * Growable stack of ints held in a primitive array. Clearing keeps the
+ * array so it can be reused without allocating.
+ * @author ReadyPlayer2
+ */
+public class IntStack {
+    private int[] values;
+    private int size = 0;
+
+    public IntStack() {
+        this.values = new int[16];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all values, keeping the capacity
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public void push(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    public int pop() {
+        return values[--size];
+    }
+
+    public int peek() {
+        return values[size - 1];
+    }
+
+    /**
+     * Gets a value by its position from the bottom of the stack
+     * @param i - position
+     * @return value
+     */
+    public int get(int i) {
+        return values[i];
+    }
+
+    /**
+     * Replaces a value by its position from the bottom of the stack
+     * @param i - position
+     * @param value - new value
+     */
+    public void set(int i, int value) {
+        values[i] = value;
+    }
+
+    /**
+     * Cuts the stack down to a smaller size
+     * @param newSize - size to cut down to
+     */
+    public void truncate(int newSize) {
+        size = newSize;
+    }
+}
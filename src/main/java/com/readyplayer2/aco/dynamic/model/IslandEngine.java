@@ -0,0 +1,223 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs several independent colonies (islands) on the same graph, each a
+ * Simulation with its own ants and pheromone, stepped on its own thread.
+ * Islands share nothing while they run, so they scale with the number of
+ * cores, and each settles on routes of its own.
+ *
+ * The islands run in rounds of migrationInterval simulated seconds. Between
+ * rounds the island with the best route shares it with the others, either
+ * offering the route itself or pulling their pheromone towards its own.
+ * Migration happens with every island stopped, so a run depends on the seed
+ * but not on how the threads are scheduled.
+ *
+ * The graph must not be edited while the engine is running.
+ * @author ReadyPlayer2
+ */
+public class IslandEngine {
+
+    /**
+     * What the best island shares with the others between rounds
+     */
+    public enum Migration {
+        // Others take its route as their best route if it is better
+        BEST_ROUTE,
+        // Others move their pheromone part of the way towards its pheromone
+        PHEROMONE
+    }
+
+    private final List<Simulation> islands = new ArrayList<>();
+    private final ExecutorService executor;
+
+    private Migration migration = Migration.BEST_ROUTE;
+    // Simulated seconds between migrations
+    private int migrationInterval = 10;
+    // Fraction of the way pheromone is moved towards the best island's
+    private double blendWeight = 0.2;
+
+    /**
+     * Creates the islands, each with its own seed taken from the given one
+     * @param graph - graph every island walks
+     * @param islandCount - number of islands, each run on its own thread
+     * @param seed - seed the islands' seeds are taken from
+     */
+    public IslandEngine(Graph graph, int islandCount, long seed) {
+        if (islandCount < 1) {
+            throw new IllegalArgumentException("There must be at least 1 island");
+        }
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (int i = 0; i < islandCount; i++) {
+            Simulation island = new Simulation(graph);
+            island.setSeed(seeds.nextLong());
+            // Compile here so the islands only read the graph once running
+            island.getCsrGraph();
+            islands.add(island);
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(islandCount, r -> {
+            Thread t = new Thread(r, "Island " + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Gets the islands, e.g. to set their algorithm or number of ants before
+     * running
+     * @return islands, not to be changed while running
+     */
+    public List<Simulation> getIslands() {
+        return Collections.unmodifiableList(islands);
+    }
+
+    public Migration getMigration() {
+        return migration;
+    }
+
+    public void setMigration(Migration migration) {
+        this.migration = migration;
+    }
+
+    public int getMigrationInterval() {
+        return migrationInterval;
+    }
+
+    /**
+     * Sets how often the islands share their best route
+     * @param migrationInterval - simulated seconds between migrations
+     */
+    public void setMigrationInterval(int migrationInterval) {
+        if (migrationInterval < 1) {
+            throw new IllegalArgumentException("Migration interval must be at least 1 second");
+        }
+        this.migrationInterval = migrationInterval;
+    }
+
+    public double getBlendWeight() {
+        return blendWeight;
+    }
+
+    /**
+     * Sets how far pheromone moves towards the best island's with
+     * Migration.PHEROMONE
+     * @param blendWeight - fraction of the way, from 0 to 1
+     */
+    public void setBlendWeight(double blendWeight) {
+        if (blendWeight < 0 || blendWeight > 1) {
+            throw new IllegalArgumentException("Blend weight must be between 0 and 1");
+        }
+        this.blendWeight = blendWeight;
+    }
+
+    /**
+     * Runs every island for a number of simulated seconds, migrating every
+     * migrationInterval seconds. Ants are spawned on any island short of its
+     * maximum first.
+     * @param seconds - simulated seconds to run for
+     * @throws InterruptedException if interrupted while waiting for the islands
+     */
+    public void run(int seconds) throws InterruptedException {
+        for (Simulation island : islands) {
+            if (!island.isRunnable()) {
+                throw new IllegalStateException("Source and destination must be set and connected");
+            }
+            island.spawnAnts();
+        }
+
+        int done = 0;
+        while (done < seconds) {
+            int round = Math.min(migrationInterval, seconds - done);
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (Simulation island : islands) {
+                tasks.add(() -> {
+                    for (int s = 0; s < round; s++) {
+                        island.runSecond();
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> f : executor.invokeAll(tasks)) {
+                try {
+                    f.get();
+                } catch (ExecutionException ee) {
+                    if (ee.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) ee.getCause();
+                    }
+                    throw new IllegalStateException("Island failed", ee.getCause());
+                }
+            }
+            done += round;
+            if (round == migrationInterval) {
+                migrate();
+            }
+        }
+    }
+
+    /**
+     * Shares the best island's route or pheromone with the other islands
+     */
+    public void migrate() {
+        Simulation best = getBestIsland();
+        if (best == null || islands.size() == 1) {
+            return;
+        }
+        int[] route = best.getBestRouteEdgeIDs();
+        for (Simulation island : islands) {
+            if (island == best) {
+                continue;
+            }
+            if (migration == Migration.BEST_ROUTE) {
+                island.offerBestRoute(route);
+            } else {
+                island.getPheromone().blend(best.getPheromone(), blendWeight);
+            }
+        }
+    }
+
+    /**
+     * Gets the island with the cheapest best route, the first one on a tie
+     * @return island, or null if no island has found a route
+     */
+    public Simulation getBestIsland() {
+        Simulation best = null;
+        for (Simulation island : islands) {
+            if (island.hasBestRoute()
+                    && (best == null || island.getBestRouteCost() < best.getBestRouteCost())) {
+                best = island;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the cost of the best route over all islands, or -1 if there is none
+     * @return cost
+     */
+    public double getBestRouteCost() {
+        Simulation best = getBestIsland();
+        return best == null ? -1 : best.getBestRouteCost();
+    }
+
+    /**
+     * Stops the island threads. The engine can not be run afterwards.
+     */
+    public void close() {
+        executor.shutdownNow();
+        for (Simulation island : islands) {
+            island.setParallelism(1);
+        }
+    }
+}
@@ -0,0 +1,523 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Imports road networks from plain text: DIMACS shortest path files (.gr arcs
+ * and .co coordinates) or a pair of CSV files (nodes "id,x,y" and edges
+ * "from,to[,cost]"). Files are read in fixed size chunks and parsed straight
+ * into the arrays of an EnvironmentFile, so memory only grows with the graph
+ * and no object is created per line.
+ *
+ * Arcs in both directions between two nodes become one edge with the lower
+ * cost, and loops are dropped. Node IDs are the node's position in the
+ * import (a DIMACS node n becomes ID n - 1). Positions are moved so the
+ * smallest x and y are 0, and the screen size of the result is the size of
+ * the network.
+ * @author ReadyPlayer2
+ */
+public final class NetworkImporter {
+    // Bytes read from a file at a time
+    private static final int CHUNKBYTES = 1 << 20;
+
+    private NetworkImporter() {
+    }
+
+    /**
+     * Imports a DIMACS network. Coordinates in .co files are longitude and
+     * latitude, so y is flipped to put north at the top.
+     * @param gr - arc file ("p sp n m" then "a u v w" lines)
+     * @param co - coordinate file ("p aux sp co n" then "v id x y" lines)
+     * @return the network
+     * @throws IOException if a file cannot be read or is not valid
+     */
+    public static EnvironmentFile importDimacs(Path gr, Path co) throws IOException {
+        double[] nodeX = null;
+        double[] nodeY = null;
+        try (LineReader in = new LineReader(co)) {
+            while (in.nextLine()) {
+                int type = in.firstChar();
+                if (type == 'p') {
+                    in.skipWord(); // p
+                    in.skipWord(); // aux
+                    in.skipWord(); // sp
+                    in.skipWord(); // co
+                    int n = in.readInt();
+                    nodeX = new double[n];
+                    nodeY = new double[n];
+                } else if (type == 'v') {
+                    if (nodeX == null) {
+                        throw in.error("Coordinate before the problem line");
+                    }
+                    in.skipWord();
+                    int id = in.readInt();
+                    if (id < 1 || id > nodeX.length) {
+                        throw in.error("Node " + id + " is out of range");
+                    }
+                    nodeX[id - 1] = in.readDouble();
+                    nodeY[id - 1] = -in.readDouble();
+                }
+            }
+        }
+        if (nodeX == null) {
+            throw new IOException("No problem line in " + co);
+        }
+
+        EdgeBuilder edges = new EdgeBuilder(nodeX, nodeY);
+        try (LineReader in = new LineReader(gr)) {
+            while (in.nextLine()) {
+                int type = in.firstChar();
+                if (type == 'p') {
+                    in.skipWord(); // p
+                    in.skipWord(); // sp
+                    int n = in.readInt();
+                    if (n != nodeX.length) {
+                        throw in.error("Arc file has " + n + " nodes but coordinate file has " + nodeX.length);
+                    }
+                    edges.expect(in.readInt() / 2);
+                } else if (type == 'a') {
+                    in.skipWord();
+                    int from = in.readInt() - 1;
+                    int to = in.readInt() - 1;
+                    double cost = in.readDouble();
+                    if (from < 0 || from >= nodeX.length || to < 0 || to >= nodeX.length) {
+                        throw in.error("Arc has a node out of range");
+                    }
+                    edges.add(from, to, cost);
+                }
+            }
+        }
+        return edges.build();
+    }
+
+    /**
+     * Imports a network from CSV files. A first line which does not start
+     * with a number is taken as a header and skipped. Edges without a cost
+     * use the distance between their nodes.
+     * @param nodes - node file, "id,x,y" per line
+     * @param edges - edge file, "from,to" or "from,to,cost" per line
+     * @return the network
+     * @throws IOException if a file cannot be read or is not valid
+     */
+    public static EnvironmentFile importCsv(Path nodes, Path edges) throws IOException {
+        LongIntMap indexByID = new LongIntMap();
+        double[] nodeX = new double[1024];
+        double[] nodeY = new double[1024];
+        int nodeCount = 0;
+        try (LineReader in = new LineReader(nodes)) {
+            while (in.nextLine()) {
+                if (in.isHeader()) {
+                    continue;
+                }
+                long id = in.readLong();
+                if (indexByID.put(id, nodeCount) != -1) {
+                    throw in.error("Node " + id + " is listed twice");
+                }
+                if (nodeCount == nodeX.length) {
+                    nodeX = Arrays.copyOf(nodeX, nodeCount * 2);
+                    nodeY = Arrays.copyOf(nodeY, nodeCount * 2);
+                }
+                nodeX[nodeCount] = in.readDouble();
+                nodeY[nodeCount] = in.readDouble();
+                nodeCount++;
+            }
+        }
+
+        EdgeBuilder builder = new EdgeBuilder(Arrays.copyOf(nodeX, nodeCount), Arrays.copyOf(nodeY, nodeCount));
+        try (LineReader in = new LineReader(edges)) {
+            while (in.nextLine()) {
+                if (in.isHeader()) {
+                    continue;
+                }
+                long fromID = in.readLong();
+                long toID = in.readLong();
+                int from = indexByID.get(fromID);
+                int to = indexByID.get(toID);
+                if (from == -1 || to == -1) {
+                    throw in.error("Edge refers to an unknown node");
+                }
+                double cost = in.hasMore() ? in.readDouble() : builder.distance(from, to);
+                builder.add(from, to, cost);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Collects the edges of an import, keeping one edge per pair of nodes
+     */
+    private static final class EdgeBuilder {
+        private final double[] nodeX;
+        private final double[] nodeY;
+        private final LongIntMap edgeByPair = new LongIntMap();
+        private int[] from = new int[1024];
+        private int[] to = new int[1024];
+        private double[] cost = new double[1024];
+        private int count = 0;
+
+        EdgeBuilder(double[] nodeX, double[] nodeY) {
+            this.nodeX = nodeX;
+            this.nodeY = nodeY;
+        }
+
+        /**
+         * Makes room for the expected number of edges
+         * @param edges - expected number of edges
+         */
+        void expect(int edges) {
+            if (edges > from.length) {
+                from = Arrays.copyOf(from, edges);
+                to = Arrays.copyOf(to, edges);
+                cost = Arrays.copyOf(cost, edges);
+            }
+        }
+
+        double distance(int a, int b) {
+            double dx = nodeX[a] - nodeX[b];
+            double dy = nodeY[a] - nodeY[b];
+            return Math.sqrt((dx * dx) + (dy * dy));
+        }
+
+        /**
+         * Adds an edge, or lowers the cost of the existing edge between the
+         * same nodes
+         * @param a - first node index
+         * @param b - second node index
+         * @param c - cost
+         */
+        void add(int a, int b, double c) {
+            if (a == b) {
+                return;
+            }
+            long key = ((long) Math.max(a, b) << 32) | Math.min(a, b);
+            int existing = edgeByPair.get(key);
+            if (existing != -1) {
+                // Already have this pair (e.g. the arc back), keep the cheaper cost
+                cost[existing] = Math.min(cost[existing], c);
+                return;
+            }
+            edgeByPair.put(key, count);
+            if (count == from.length) {
+                expect(count * 2);
+            }
+            from[count] = a;
+            to[count] = b;
+            cost[count] = c;
+            count++;
+        }
+
+        /**
+         * Moves the network to the origin and creates the file contents
+         * @return the network
+         */
+        EnvironmentFile build() {
+            int nodeCount = nodeX.length;
+            double minX = Double.MAX_VALUE;
+            double minY = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE;
+            double maxY = -Double.MAX_VALUE;
+            for (int n = 0; n < nodeCount; n++) {
+                minX = Math.min(minX, nodeX[n]);
+                minY = Math.min(minY, nodeY[n]);
+                maxX = Math.max(maxX, nodeX[n]);
+                maxY = Math.max(maxY, nodeY[n]);
+            }
+            int[] nodeIDs = new int[nodeCount];
+            for (int n = 0; n < nodeCount; n++) {
+                nodeIDs[n] = n;
+                nodeX[n] -= minX;
+                nodeY[n] -= minY;
+            }
+
+            int[] edgeIDs = new int[count];
+            double[] traffic = new double[count];
+            double[] pheromone = new double[count];
+            for (int e = 0; e < count; e++) {
+                edgeIDs[e] = e;
+                traffic[e] = 1.0;
+                pheromone[e] = 1.0;
+            }
+            double width = nodeCount == 0 ? 1 : Math.max(1, maxX - minX);
+            double height = nodeCount == 0 ? 1 : Math.max(1, maxY - minY);
+            return new EnvironmentFile(width, height, -1, -1, nodeIDs, nodeX, nodeY,
+                    edgeIDs, Arrays.copyOf(from, count), Arrays.copyOf(to, count), Arrays.copyOf(cost, count), traffic, pheromone);
+        }
+    }
+
+    /**
+     * Open addressing map from long keys to non-negative int values
+     */
+    private static final class LongIntMap {
+        private long[] keys = new long[1024];
+        private int[] values = new int[1024];
+        private int size = 0;
+
+        LongIntMap() {
+            Arrays.fill(values, -1);
+        }
+
+        /**
+         * Sets the value of a key
+         * @param key - key
+         * @param value - value, not negative
+         * @return the previous value, or -1 if the key was not present
+         */
+        int put(long key, int value) {
+            if (size * 2 >= keys.length) {
+                grow();
+            }
+            int slot = find(keys, values, key);
+            int previous = values[slot];
+            if (previous == -1) {
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] = value;
+            return previous;
+        }
+
+        /**
+         * Gets the value of a key
+         * @param key - key
+         * @return value, or -1 if the key is not present
+         */
+        int get(long key) {
+            return values[find(keys, values, key)];
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            Arrays.fill(values, -1);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != -1) {
+                    int slot = find(keys, values, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        /**
+         * Finds the slot holding a key, or the empty slot where it would go
+         */
+        private static int find(long[] keys, int[] values, long key) {
+            int mask = keys.length - 1;
+            long h = key * 0x9E3779B97F4A7C15L;
+            int slot = (int) (h ^ (h >>> 32)) & mask;
+            while (values[slot] != -1 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * Reads a text file a line at a time through a fixed size buffer, with
+     * number parsing straight from the bytes. Commas, spaces, tabs and
+     * semicolons separate values.
+     */
+    private static final class LineReader implements Closeable {
+        private final FileChannel channel;
+        private final Path path;
+        private byte[] buffer = new byte[CHUNKBYTES];
+        private int limit = 0;
+        private boolean endOfFile = false;
+        // Current line is buffer[lineStart] to buffer[lineEnd - 1], next value at position
+        private int lineStart = 0;
+        private int lineEnd = -1;
+        private int position = 0;
+        private long lineNumber = 0;
+        // Lines with content returned so far, blank lines are not counted
+        private long linesReturned = 0;
+
+        LineReader(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+
+        /**
+         * Moves to the next line which is not empty
+         * @return false at the end of the file
+         * @throws IOException if the file cannot be read
+         */
+        boolean nextLine() throws IOException {
+            do {
+                if (!readLine()) {
+                    return false;
+                }
+            } while (!hasMore());
+            linesReturned++;
+            return true;
+        }
+
+        private boolean readLine() throws IOException {
+            int start = lineEnd + 1;
+            int scanned = start;
+            while (true) {
+                for (int i = scanned; i < limit; i++) {
+                    if (buffer[i] == '\n') {
+                        setLine(start, i);
+                        return true;
+                    }
+                }
+                if (endOfFile) {
+                    if (start < limit) {
+                        // Last line without a newline
+                        setLine(start, limit);
+                        return true;
+                    }
+                    return false;
+                }
+                // Keep the partial line and read the next chunk after it
+                int kept = limit - start;
+                if (kept == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                } else {
+                    System.arraycopy(buffer, start, buffer, 0, kept);
+                }
+                limit = kept;
+                start = 0;
+                scanned = kept;
+                int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+                if (read == -1) {
+                    endOfFile = true;
+                } else {
+                    limit += read;
+                }
+            }
+        }
+
+        private void setLine(int start, int end) {
+            lineStart = start;
+            lineEnd = end;
+            position = start;
+            lineNumber++;
+        }
+
+        /**
+         * Gets the first character of the line
+         * @return character
+         */
+        int firstChar() {
+            skipSeparators();
+            return buffer[position];
+        }
+
+        /**
+         * Checks if the line is a header, i.e. the first line with content
+         * and not a number
+         * @return true if the line should be skipped
+         */
+        boolean isHeader() {
+            int c = firstChar();
+            return linesReturned == 1 && !(c == '-' || c == '+' || (c >= '0' && c <= '9'));
+        }
+
+        /**
+         * Checks if there is another value on the line
+         * @return true if there is
+         */
+        boolean hasMore() {
+            skipSeparators();
+            return position < lineEnd;
+        }
+
+        /**
+         * Skips the next value
+         */
+        void skipWord() {
+            skipSeparators();
+            while (position < lineEnd && !isSeparator(buffer[position])) {
+                position++;
+            }
+        }
+
+        int readInt() throws IOException {
+            long value = readLong();
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw error("Value " + value + " is too large");
+            }
+            return (int) value;
+        }
+
+        long readLong() throws IOException {
+            skipSeparators();
+            int start = position;
+            boolean negative = false;
+            if (position < lineEnd && (buffer[position] == '-' || buffer[position] == '+')) {
+                negative = buffer[position] == '-';
+                position++;
+            }
+            long value = 0;
+            int digits = 0;
+            while (position < lineEnd && buffer[position] >= '0' && buffer[position] <= '9') {
+                value = value * 10 + (buffer[position] - '0');
+                position++;
+                digits++;
+            }
+            if (digits == 0 || digits > 18 || (position < lineEnd && !isSeparator(buffer[position]))) {
+                position = start;
+                throw error("Expected a whole number");
+            }
+            return negative ? -value : value;
+        }
+
+        double readDouble() throws IOException {
+            skipSeparators();
+            int start = position;
+            while (position < lineEnd && !isSeparator(buffer[position])) {
+                position++;
+            }
+            int length = position - start;
+            // Whole numbers, the usual case for DIMACS, avoid creating a string
+            boolean whole = length > 0 && length <= 18;
+            for (int i = start; i < position && whole; i++) {
+                byte b = buffer[i];
+                whole = (b >= '0' && b <= '9') || (i == start && (b == '-' || b == '+') && length > 1);
+            }
+            if (whole) {
+                position = start;
+                return readLong();
+            }
+            try {
+                return Double.parseDouble(new String(buffer, start, length, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException nfe) {
+                throw error("Expected a number");
+            }
+        }
+
+        /**
+         * Creates an error for the current line
+         * @param message - what is wrong
+         * @return the exception to throw
+         */
+        IOException error(String message) {
+            return new IOException(path.getFileName() + " line " + lineNumber + ": " + message);
+        }
+
+        private void skipSeparators() {
+            while (position < lineEnd && isSeparator(buffer[position])) {
+                position++;
+            }
+        }
+
+        private static boolean isSeparator(byte b) {
+            return b == ' ' || b == ',' || b == '\t' || b == ';' || b == '\r';
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.readyplayer2.aco.dynamic.model;
+
+/**
+ * Map from node index to its depth in an ant's node stack, so a loop can be
+ * found and cut without scanning the stack. Open addressing over primitive
+ * arrays; entries are stamped with a generation so clearing is O(1).
+ *
+ * Entries are never removed when nodes are popped. Callers check a depth
+ * against the stack before trusting it.
+ * @author ReadyPlayer2
+ */
+public class NodeDepthMap {
+    private int[] keys = new int[16];
+    private int[] depths = new int[16];
+    private int[] stamps = new int[16];
+    private int generation = 1;
+    private int size = 0;
+
+    /**
+     * Removes all entries
+     */
+    public void clear() {
+        generation++;
+        if (generation == 0) {
+            // Stamps wrapped round, start again from clean arrays
+            stamps = new int[stamps.length];
+            generation = 1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Records the depth of a node, replacing any previous depth
+     * @param node - node index
+     * @param depth - position in the stack
+     */
+    public void put(int node, int depth) {
+        if (2 * (size + 1) > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int i = hash(node) & mask;
+        while (stamps[i] == generation && keys[i] != node) {
+            i = (i + 1) & mask;
+        }
+        if (stamps[i] != generation) {
+            stamps[i] = generation;
+            keys[i] = node;
+            size++;
+        }
+        depths[i] = depth;
+    }
+
+    /**
+     * Gets the last depth recorded for a node
+     * @param node - node index
+     * @return depth or -1 if never recorded since the last clear
+     */
+    public int get(int node) {
+        int mask = keys.length - 1;
+        int i = hash(node) & mask;
+        while (stamps[i] == generation) {
+            if (keys[i] == node) {
+                return depths[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Doubles the table size and re-inserts the current entries
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldDepths = depths;
+        int[] oldStamps = stamps;
+        int oldGeneration = generation;
+        keys = new int[oldKeys.length * 2];
+        depths = new int[oldKeys.length * 2];
+        stamps = new int[oldKeys.length * 2];
+        generation = 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] == oldGeneration) {
+                put(oldKeys[i], oldDepths[i]);
+            }
+        }
+    }
+
+    /**
+     * Spreads node indices over the table
+     * @param node - node index
+     * @return hash
+     */
+    private static int hash(int node) {
+        int h = node * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,184 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Uniform grid over the positions of a list of nodes, used to find the
+ * nearest nodes to a point without checking every node. Nodes are referred to
+ * by their index in the list the grid was built from; the grid is a snapshot
+ * and does not follow later changes to the list.
+ * @author ReadyPlayer2
+ */
+public class NodeGrid {
+    // Average number of nodes per cell
+    private static final int NODESPERCELL = 2;
+
+    private final double[] x;
+    private final double[] y;
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int cellsX;
+    private final int cellsY;
+    // Nodes of cell c are cellNodes[cellStart[c]] to cellNodes[cellStart[c + 1] - 1]
+    private final int[] cellStart;
+    private final int[] cellNodes;
+
+    /**
+     * Builds the grid from the current node positions
+     * @param nodes - nodes to index
+     */
+    public NodeGrid(List<GraphNode> nodes) {
+        int count = nodes.size();
+        x = new double[count];
+        y = new double[count];
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            GraphNode n = nodes.get(i);
+            x[i] = n.getX();
+            y[i] = n.getY();
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxX = Math.max(maxX, x[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        if (count == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        this.minX = minX;
+        this.minY = minY;
+
+        // Square cells sized so each holds a couple of nodes on average
+        double width = maxX - minX;
+        double height = maxY - minY;
+        int cells = Math.max(1, count / NODESPERCELL);
+        double size = Math.max(Math.sqrt(width * height / cells), Math.max(width, height) / cells);
+        cellSize = size > 0 ? size : 1.0;
+        cellsX = (int) (width / cellSize) + 1;
+        cellsY = (int) (height / cellSize) + 1;
+
+        // Count the nodes in each cell then place them
+        cellStart = new int[cellsX * cellsY + 1];
+        for (int i = 0; i < count; i++) {
+            cellStart[cellOf(i) + 1]++;
+        }
+        for (int c = 0; c < cellsX * cellsY; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellNodes = new int[count];
+        int[] fill = new int[cellsX * cellsY];
+        for (int i = 0; i < count; i++) {
+            int c = cellOf(i);
+            cellNodes[cellStart[c] + fill[c]] = i;
+            fill[c]++;
+        }
+    }
+
+    public int size() {
+        return x.length;
+    }
+
+    /**
+     * Finds the k nearest accepted nodes to a point, closest first. Nodes at
+     * the same distance are ordered by index, so the result matches a linear
+     * scan of the node list.
+     * @param px - x position
+     * @param py - y position
+     * @param k - number of nodes wanted
+     * @param maxDistance - nodes this far away or further are ignored
+     * @param accept - test for node indexes which may be returned
+     * @param result - filled with the node indexes found, at least k long
+     * @return number of nodes found, up to k
+     */
+    public int nearest(double px, double py, int k, double maxDistance, IntPredicate accept, int[] result) {
+        if (k <= 0) {
+            return 0;
+        }
+        double[] distances = new double[k];
+        int found = 0;
+        int cx = clamp((int) Math.floor((px - minX) / cellSize), cellsX);
+        int cy = clamp((int) Math.floor((py - minY) / cellSize), cellsY);
+        int maxRing = Math.max(cellsX, cellsY);
+
+        for (int r = 0; r <= maxRing; r++) {
+            // Every node in ring r is more than r - 1 cells away
+            double ringDistance = Math.max(0, r - 1) * cellSize;
+            if (ringDistance >= maxDistance || (found == k && distances[k - 1] < ringDistance)) {
+                break;
+            }
+            for (int gy = cy - r; gy <= cy + r; gy++) {
+                if (gy < 0 || gy >= cellsY) {
+                    continue;
+                }
+                // Only the edge of the ring, the inside was searched already
+                boolean edgeRow = gy == cy - r || gy == cy + r;
+                int step = edgeRow ? 1 : Math.max(1, 2 * r);
+                for (int gx = cx - r; gx <= cx + r; gx += step) {
+                    if (gx < 0 || gx >= cellsX) {
+                        continue;
+                    }
+                    int c = gy * cellsX + gx;
+                    for (int s = cellStart[c]; s < cellStart[c + 1]; s++) {
+                        int i = cellNodes[s];
+                        double dx = x[i] - px;
+                        double dy = y[i] - py;
+                        double d = Math.sqrt((dx * dx) + (dy * dy));
+                        if (d >= maxDistance || (found == k && !closer(d, i, distances[k - 1], result[k - 1]))) {
+                            continue;
+                        }
+                        if (!accept.test(i)) {
+                            continue;
+                        }
+                        // Insert in order, dropping the furthest if full
+                        int pos = found < k ? found++ : k - 1;
+                        while (pos > 0 && closer(d, i, distances[pos - 1], result[pos - 1])) {
+                            distances[pos] = distances[pos - 1];
+                            result[pos] = result[pos - 1];
+                            pos--;
+                        }
+                        distances[pos] = d;
+                        result[pos] = i;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Checks if node a is ordered before node b
+     * @param da - distance to a
+     * @param a - index of a
+     * @param db - distance to b
+     * @param b - index of b
+     * @return true if a is closer, or the same distance with a lower index
+     */
+    private static boolean closer(double da, int a, double db, int b) {
+        return da < db || (da == db && a < b);
+    }
+
+    /**
+     * Gets the cell holding a node
+     * @param i - node index
+     * @return cell index
+     */
+    private int cellOf(int i) {
+        int gx = clamp((int) ((x[i] - minX) / cellSize), cellsX);
+        int gy = clamp((int) ((y[i] - minY) / cellSize), cellsY);
+        return gy * cellsX + gx;
+    }
+
+    /**
+     * Keeps a cell coordinate inside the grid
+     * @param g - cell coordinate
+     * @param cells - number of cells along the axis
+     * @return coordinate between 0 and cells - 1
+     */
+    private static int clamp(int g, int cells) {
+        return Math.max(0, Math.min(cells - 1, g));
+    }
+}
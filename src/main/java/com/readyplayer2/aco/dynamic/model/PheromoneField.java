@@ -0,0 +1,286 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.util.Arrays;
+
+/**
+ * Pheromone on each edge of a CsrGraph, held in a single array indexed by
+ * edge index. Each node has a version number which changes whenever the
+ * pheromone on one of its edges changes, so values derived from it (e.g. a
+ * RouletteTable) know when to rebuild.
+ *
+ * Evaporation is either eager, rewriting every edge each round, or lazy. When
+ * lazy, each round only moves the epoch on and every edge keeps the epoch its
+ * value was last brought up to date at. The rounds missed since are applied
+ * when the edge is next read or changed, so the cost follows how many edges
+ * the ants use rather than the size of the graph.
+ * @author ReadyPlayer2
+ */
+public class PheromoneField {
+    private final double minPheromone = 1.0;
+    private final double maxPheromone = 1000.0;
+    private final CsrGraph graph;
+    private final double[] pheromone;
+    private final int[] nodeVersion;
+    // Evaporation rounds so far, part of every node's version
+    private int epoch = 0;
+
+    // Epoch each edge's value is up to date with, null when evaporating eagerly
+    private int[] edgeEpoch;
+    // Evaporation applied for each round not yet applied to an edge
+    private double lazyEvaporation = 1.0;
+    private boolean lazyLimited = false;
+
+    /**
+     * Creates a field with the minimum pheromone on every edge
+     * @param graph - graph the pheromone is for
+     */
+    public PheromoneField(CsrGraph graph) {
+        this.graph = graph;
+        this.pheromone = new double[graph.getEdgeCount()];
+        this.nodeVersion = new int[graph.getNodeCount()];
+        reset();
+    }
+
+    public int size() {
+        return pheromone.length;
+    }
+
+    public double getMinPheromone() {
+        return minPheromone;
+    }
+
+    public double getMaxPheromone() {
+        return maxPheromone;
+    }
+
+    /**
+     * Gets the version of the pheromone around a node
+     * @param node - node index
+     * @return version, changes when pheromone on any edge of the node changes
+     */
+    public int getNodeVersion(int node) {
+        // Both only go up, so the sum changes whenever either does
+        return nodeVersion[node] + epoch;
+    }
+
+    public boolean isLazy() {
+        return edgeEpoch != null;
+    }
+
+    /**
+     * Switches between evaporating every edge each round and evaporating
+     * each edge only when it is next used
+     * @param lazy - true for lazy evaporation
+     */
+    public void setLazy(boolean lazy) {
+        if (lazy == isLazy()) {
+            return;
+        }
+        if (lazy) {
+            edgeEpoch = new int[pheromone.length];
+            Arrays.fill(edgeEpoch, epoch);
+        } else {
+            settleAll();
+            edgeEpoch = null;
+        }
+    }
+
+    /**
+     * Sets every edge back to the minimum pheromone
+     */
+    public final void reset() {
+        Arrays.fill(pheromone, minPheromone);
+        if (edgeEpoch != null) {
+            Arrays.fill(edgeEpoch, epoch + 1);
+        }
+        changedAll();
+    }
+
+    /**
+     * Gets the pheromone on an edge
+     * @param edge - edge index
+     * @return pheromone
+     */
+    public double get(int edge) {
+        if (edgeEpoch == null || edgeEpoch[edge] == epoch) {
+            return pheromone[edge];
+        }
+        // Only reads, so edges can be read from several threads at once
+        return decay(pheromone[edge], epoch - edgeEpoch[edge]);
+    }
+
+    /**
+     * Sets the pheromone on an edge without applying limits, e.g. when
+     * restoring saved values
+     * @param edge - edge index
+     * @param value - the pheromone value
+     */
+    public void load(int edge, double value) {
+        pheromone[edge] = value;
+        if (edgeEpoch != null) {
+            edgeEpoch[edge] = epoch;
+        }
+        changed(edge);
+    }
+
+    /**
+     * Sets the quantity of pheromone on an edge as long as it is within
+     * min and max pheromone bounds
+     * @param edge - edge index
+     * @param value - the pheromone value
+     * @param isLimited - is there min/max limits for this edge
+     */
+    public void set(int edge, double value, boolean isLimited) {
+        settle(edge);
+        if (isLimited) {
+            if (value > minPheromone && value < maxPheromone) {
+                pheromone[edge] = value;
+            } else if (value > maxPheromone) {
+                pheromone[edge] = maxPheromone;
+            } else if (value < minPheromone) {
+                pheromone[edge] = minPheromone;
+            }
+        } else {
+            if (value < minPheromone) {
+                pheromone[edge] = minPheromone;
+            } else {
+                pheromone[edge] = value;
+            }
+        }
+        changed(edge);
+    }
+
+    /**
+     * Adds the amount to the pheromone on an edge
+     * @param edge - edge index
+     * @param amount - the pheromone value
+     * @param isLimited - is there min/max limits for this edge
+     */
+    public void add(int edge, double amount, boolean isLimited) {
+        settle(edge);
+        if (isLimited) {
+            if (pheromone[edge] + amount < maxPheromone) {
+                pheromone[edge] += amount;
+            } else {
+                pheromone[edge] = maxPheromone;
+            }
+        } else {
+            pheromone[edge] += amount;
+        }
+        changed(edge);
+    }
+
+    /**
+     * Multiplies the pheromone on every edge by the evaporation factor.
+     * Each case is a single loop without branches, clamping with min/max,
+     * so the JIT can turn it into SIMD instructions. When lazy, only the
+     * epoch is moved on.
+     * @param evaporation - fraction of pheromone kept
+     * @param isLimited - are there min/max limits
+     */
+    public void evaporate(double evaporation, boolean isLimited) {
+        if (edgeEpoch != null) {
+            if (evaporation != lazyEvaporation || isLimited != lazyLimited) {
+                // Rounds still owed were of a different kind
+                settleAll();
+                lazyEvaporation = evaporation;
+                lazyLimited = isLimited;
+            }
+            changedAll();
+            return;
+        }
+        final double[] values = pheromone;
+        final double min = minPheromone;
+        final double max = maxPheromone;
+        if (isLimited) {
+            for (int e = 0; e < values.length; e++) {
+                values[e] = Math.min(Math.max(values[e] * evaporation, min), max);
+            }
+        } else {
+            for (int e = 0; e < values.length; e++) {
+                values[e] = Math.max(values[e] * evaporation, min);
+            }
+        }
+        changedAll();
+    }
+
+    /**
+     * Moves the pheromone on every edge part of the way towards another
+     * field's, e.g. to pull one colony towards a better one
+     * @param target - field on the same graph to move towards
+     * @param weight - fraction of the way to move, from 0 to 1
+     */
+    public void blend(PheromoneField target, double weight) {
+        if (target.size() != pheromone.length) {
+            throw new IllegalArgumentException("Pheromone fields are for different graphs");
+        }
+        for (int e = 0; e < pheromone.length; e++) {
+            pheromone[e] = (1 - weight) * get(e) + weight * target.get(e);
+            if (edgeEpoch != null) {
+                // Up to date with the epoch changedAll() moves on to
+                edgeEpoch[e] = epoch + 1;
+            }
+        }
+        changedAll();
+    }
+
+    /**
+     * Applies the given number of lazy evaporation rounds to a value, one at
+     * a time so the result is the same as evaporating eagerly
+     * @param value - pheromone before the rounds
+     * @param rounds - number of rounds
+     * @return pheromone after the rounds
+     */
+    private double decay(double value, int rounds) {
+        for (int i = 0; i < rounds; i++) {
+            if (lazyLimited) {
+                value = Math.min(Math.max(value * lazyEvaporation, minPheromone), maxPheromone);
+            } else {
+                value = Math.max(value * lazyEvaporation, minPheromone);
+            }
+            if (value == minPheromone && lazyEvaporation <= 1.0) {
+                // No further round can change it
+                break;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Brings the value of an edge up to date with the epoch
+     * @param edge - edge index
+     */
+    private void settle(int edge) {
+        if (edgeEpoch != null && edgeEpoch[edge] != epoch) {
+            pheromone[edge] = decay(pheromone[edge], epoch - edgeEpoch[edge]);
+            edgeEpoch[edge] = epoch;
+        }
+    }
+
+    /**
+     * Brings every edge up to date with the epoch
+     */
+    private void settleAll() {
+        if (edgeEpoch != null) {
+            for (int e = 0; e < pheromone.length; e++) {
+                settle(e);
+            }
+        }
+    }
+
+    /**
+     * Marks both nodes of an edge as changed
+     * @param edge - edge index
+     */
+    private void changed(int edge) {
+        nodeVersion[graph.getEdgeFrom(edge)]++;
+        nodeVersion[graph.getEdgeTo(edge)]++;
+    }
+
+    /**
+     * Marks every node as changed
+     */
+    private void changedAll() {
+        epoch++;
+    }
+}
@@ -0,0 +1,204 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates random positions in a rectangle which are all at least a minimum
+ * distance from each other and from any existing positions. Uses Bridson's
+ * algorithm to fill the free space, so the cost depends on how many positions
+ * fit rather than on how full the area already is, then picks the number of
+ * positions wanted.
+ * @author ReadyPlayer2
+ */
+public class PoissonDiskSampler {
+    // Candidates tried around an active point before it is retired
+    private static final int ATTEMPTS = 12;
+
+    private final double width;
+    private final double height;
+    private final double minDistance;
+    private final double cellSize;
+    private final int cellsX;
+    private final int cellsY;
+
+    // Points as x, y pairs, existing ones first
+    private double[] points = new double[64];
+    private int pointCount = 0;
+    private int existingCount = 0;
+    // First point in each cell and the next point in the same cell, -1 for none
+    private final int[] cellHead;
+    private int[] next = new int[32];
+
+    /**
+     * Creates a sampler for the rectangle from (0, 0) to (width, height)
+     * @param width - width of the area
+     * @param height - height of the area
+     * @param minDistance - minimum distance between any two positions
+     */
+    public PoissonDiskSampler(double width, double height, double minDistance) {
+        if (!(width > 0 && height > 0 && minDistance > 0)) {
+            throw new IllegalArgumentException("Width, height and minimum distance must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.minDistance = minDistance;
+        // Cells small enough that any two points in one cell are too close
+        this.cellSize = minDistance / Math.sqrt(2);
+        this.cellsX = (int) Math.ceil(width / cellSize);
+        this.cellsY = (int) Math.ceil(height / cellSize);
+        this.cellHead = new int[cellsX * cellsY];
+        Arrays.fill(cellHead, -1);
+    }
+
+    /**
+     * Adds an existing position which new positions must keep away from.
+     * Positions outside the area are ignored.
+     * @param x - x position
+     * @param y - y position
+     */
+    public void addExisting(double x, double y) {
+        if (pointCount != existingCount) {
+            throw new IllegalStateException("Existing positions must be added before generating");
+        }
+        if (inArea(x, y)) {
+            add(x, y);
+            existingCount++;
+        }
+    }
+
+    /**
+     * Fills the free space and picks up to count of the new positions at
+     * random
+     * @param count - number of positions wanted
+     * @param random - random source, the same seed gives the same positions
+     * @return the positions as x, y pairs, fewer than count if the area is full
+     */
+    public double[] generate(int count, SplittableRandom random) {
+        fill(random);
+
+        // Partial shuffle of the new points to choose which are used
+        int available = pointCount - existingCount;
+        int chosen = Math.max(0, Math.min(count, available));
+        int[] order = new int[available];
+        for (int i = 0; i < available; i++) {
+            order[i] = existingCount + i;
+        }
+        double[] result = new double[chosen * 2];
+        for (int i = 0; i < chosen; i++) {
+            int j = i + random.nextInt(available - i);
+            int p = order[j];
+            order[j] = order[i];
+            result[i * 2] = points[p * 2];
+            result[i * 2 + 1] = points[p * 2 + 1];
+        }
+        return result;
+    }
+
+    /**
+     * Adds points around active points until no more can fit
+     * @param random - random source
+     */
+    private void fill(SplittableRandom random) {
+        if (pointCount > existingCount) {
+            return;
+        }
+        double minSquared = minDistance * minDistance;
+        int[] active = new int[Math.max(16, pointCount)];
+        int activeCount = 0;
+        for (int p = 0; p < pointCount; p++) {
+            active[activeCount++] = p;
+        }
+        if (activeCount == 0) {
+            add(random.nextDouble() * width, random.nextDouble() * height);
+            active[activeCount++] = 0;
+        }
+
+        while (activeCount > 0) {
+            int a = random.nextInt(activeCount);
+            double ax = points[active[a] * 2];
+            double ay = points[active[a] * 2 + 1];
+            boolean placed = false;
+            for (int k = 0; k < ATTEMPTS && !placed; k++) {
+                // Random point in the ring between 1 and 2 times minDistance,
+                // picked from the surrounding square to avoid sin/cos
+                double dx;
+                double dy;
+                double squared;
+                do {
+                    dx = (random.nextDouble() * 4 - 2) * minDistance;
+                    dy = (random.nextDouble() * 4 - 2) * minDistance;
+                    squared = (dx * dx) + (dy * dy);
+                } while (squared < minSquared || squared >= 4 * minSquared);
+                double x = ax + dx;
+                double y = ay + dy;
+                if (inArea(x, y) && isFree(x, y)) {
+                    if (activeCount == active.length) {
+                        active = Arrays.copyOf(active, active.length * 2);
+                    }
+                    active[activeCount++] = add(x, y);
+                    placed = true;
+                }
+            }
+            if (!placed) {
+                // Nothing fits around this point, swap remove it
+                active[a] = active[--activeCount];
+            }
+        }
+    }
+
+    /**
+     * Checks if a position is far enough from every point
+     * @param x - x position
+     * @param y - y position
+     * @return true if valid
+     */
+    private boolean isFree(double x, double y) {
+        int gx = (int) (x / cellSize);
+        int gy = (int) (y / cellSize);
+        double minSquared = minDistance * minDistance;
+        // A point within minDistance is at most 2 cells away
+        for (int cy = Math.max(0, gy - 2); cy <= Math.min(cellsY - 1, gy + 2); cy++) {
+            for (int cx = Math.max(0, gx - 2); cx <= Math.min(cellsX - 1, gx + 2); cx++) {
+                for (int p = cellHead[cy * cellsX + cx]; p != -1; p = next[p]) {
+                    double dx = points[p * 2] - x;
+                    double dy = points[p * 2 + 1] - y;
+                    if ((dx * dx) + (dy * dy) < minSquared) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stores a point and puts it in its cell
+     * @param x - x position
+     * @param y - y position
+     * @return index of the point
+     */
+    private int add(double x, double y) {
+        if (pointCount == next.length) {
+            next = Arrays.copyOf(next, next.length * 2);
+            points = Arrays.copyOf(points, points.length * 2);
+        }
+        int p = pointCount++;
+        points[p * 2] = x;
+        points[p * 2 + 1] = y;
+        int cell = Math.min(cellsY - 1, (int) (y / cellSize)) * cellsX + Math.min(cellsX - 1, (int) (x / cellSize));
+        next[p] = cellHead[cell];
+        cellHead[cell] = p;
+        return p;
+    }
+
+    /**
+     * Checks if a position is inside the area
+     * @param x - x position
+     * @param y - y position
+     * @return true if inside
+     */
+    private boolean inArea(double x, double y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+}
@@ -0,0 +1,112 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.util.Arrays;
+
+/**
+ * Cached roulette wheel for choosing an edge out of each node. For every node
+ * the running total of pheromone over its adjacency slots is stored, so a
+ * choice is one random value and a binary search. The totals for a node are
+ * only rebuilt when the pheromone on one of its edges has changed.
+ * @author ReadyPlayer2
+ */
+public class RouletteTable {
+    private final CsrGraph graph;
+    private final PheromoneField pheromone;
+
+    // Running total of pheromone, per adjacency slot
+    private final double[] cumulative;
+    // Pheromone version each node's totals were built from
+    private final int[] builtVersion;
+
+    /**
+     * Creates an empty table, totals are built on first use
+     * @param graph - graph being walked
+     * @param pheromone - pheromone on the graph's edges
+     */
+    public RouletteTable(CsrGraph graph, PheromoneField pheromone) {
+        this.graph = graph;
+        this.pheromone = pheromone;
+        this.cumulative = new double[2 * graph.getEdgeCount()];
+        this.builtVersion = new int[graph.getNodeCount()];
+        Arrays.fill(builtVersion, -1);
+    }
+
+    /**
+     * Chooses an adjacency slot of a node with probability proportional to
+     * the pheromone on its edge
+     * @param node - node index
+     * @param excludedSlot - slot that can not be chosen, or -1
+     * @param random - uniform random value in [0, 1)
+     * @return slot chosen
+     */
+    public int select(int node, int excludedSlot, double random) {
+        int first = graph.getFirstSlot(node);
+        int last = first + graph.getDegree(node) - 1;
+        if (builtVersion[node] != pheromone.getNodeVersion(node)) {
+            build(node, first, last);
+        }
+
+        // Pick a point on the wheel with the excluded slot cut out, then
+        // move it past that slot if it falls after it
+        double total = cumulative[last];
+        double before = 0;
+        double excluded = 0;
+        if (excludedSlot != -1) {
+            before = excludedSlot > first ? cumulative[excludedSlot - 1] : 0;
+            excluded = cumulative[excludedSlot] - before;
+        }
+        double target = random * (total - excluded);
+        if (excludedSlot != -1 && target >= before) {
+            target += excluded;
+        }
+
+        // Find the first slot whose running total is above the target
+        int lo = first;
+        int hi = last;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cumulative[mid] > target) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+
+        // Rounding can land on the excluded slot at the very end of the wheel
+        if (lo == excludedSlot) {
+            lo = lo > first ? lo - 1 : lo + 1;
+        }
+        return lo;
+    }
+
+    /**
+     * Rebuilds the totals of any nodes in a range whose pheromone has changed,
+     * so select() only reads the table until the pheromone next changes.
+     * Ranges which do not overlap can be refreshed at the same time.
+     * @param fromNode - first node index
+     * @param toNode - node index after the last
+     */
+    public void refresh(int fromNode, int toNode) {
+        for (int node = fromNode; node < toNode; node++) {
+            if (builtVersion[node] != pheromone.getNodeVersion(node)) {
+                int first = graph.getFirstSlot(node);
+                build(node, first, first + graph.getDegree(node) - 1);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the running totals for a node
+     * @param node - node index
+     * @param first - first slot of the node
+     * @param last - last slot of the node
+     */
+    private void build(int node, int first, int last) {
+        double sum = 0;
+        for (int slot = first; slot <= last; slot++) {
+            sum += pheromone.get(graph.getSlotEdge(slot));
+            cumulative[slot] = sum;
+        }
+        builtVersion[node] = pheromone.getNodeVersion(node);
+    }
+}
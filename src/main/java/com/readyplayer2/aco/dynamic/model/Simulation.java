@@ -0,0 +1,1082 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the ant colony over a graph: moves ants, tracks the best route and
+ * applies the AS/MMAS pheromone update rules. Has no dependency on JavaFX so
+ * it can be driven by the GUI or run headless.
+ * @author ReadyPlayer2
+ */
+public class Simulation {
+    private final Graph graph;
+    private final List<AntAgent> ants = new ArrayList<>();
+    // Ants removed from the simulation, reused by spawnAnts()
+    private final List<AntAgent> antPool = new ArrayList<>();
+
+    // Compiled form of the graph, rebuilt when the graph version changes
+    private CsrGraph csr;
+    private PheromoneField pheromone;
+    private RouletteTable roulette;
+    private int compiledVersion;
+
+    // Edge indices of the best route, empty if there is none
+    private int[] bestRoute = new int[0];
+    // Edges on the best route, and its cost (NaN when it needs summing again)
+    private final BitSet bestRouteEdges = new BitSet();
+    private double bestRouteCost = Double.NaN;
+
+    // Algorithm being used
+    private Algorithm algorithm = Algorithm.AS;
+
+    // Max parameters
+    private int MAXANTS = 100;
+    private double PHERMULTIPLIER = 1;
+
+    // Incrementable counter for unique IDs
+    private int uniqueAntID = 0;
+
+    // Runtime
+    private long simulationRuntime = 0;
+
+    // Simulated clock: steps per second of runtime (one pheromone update)
+    private int stepsPerSecond = 60;
+    private int stepsThisSecond = 0;
+
+    // Master seed, each ant and the node generator get their own stream from it
+    private long seed = System.nanoTime();
+    private SplittableRandom antRandom;
+    private SplittableRandom generatorRandom;
+
+    // Shortest route pointer
+    private double shortestRoute = Double.MAX_VALUE;
+
+    private double evaporation = 0.9;
+    private final double pheromoneConstant = 10000;
+    private int stagnationCounter = 0;
+    private final int stagnationSecondLimit = 20;
+    private boolean lazyEvaporation = false;
+
+    // Event driven mode
+    private boolean eventDriven = false;
+    private final ArrivalQueue arrivals = new ArrivalQueue();
+    private double time = 0;
+    private boolean scheduled = false;
+
+    // Parallel stepping: ants per task, nodes per roulette refresh task
+    private static final int ANTCHUNK = 512;
+    private static final int NODECHUNK = 4096;
+    // Pool stepping the ants, null to step them on the calling thread
+    private ForkJoinPool pool;
+    // Deposits and completed routes of each chunk of ants in a parallel step
+    private StepBuffer[] stepBuffers = new StepBuffer[0];
+
+    private SimulationListener listener;
+    private final SimulationMetrics metrics = new SimulationMetrics();
+
+    public Simulation(Graph graph) {
+        this.graph = graph;
+        seedStreams();
+    }
+
+    public Graph getGraph() {
+        return graph;
+    }
+
+    public SimulationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the compiled graph the ants walk, rebuilding it first if the graph
+     * has changed
+     * @return compiled graph
+     */
+    public CsrGraph getCsrGraph() {
+        compile();
+        return csr;
+    }
+
+    /**
+     * Gets the pheromone on the compiled graph's edges
+     * @return pheromone field
+     */
+    public PheromoneField getPheromone() {
+        compile();
+        return pheromone;
+    }
+
+    public List<AntAgent> getAnts() {
+        return ants;
+    }
+
+    public boolean hasBestRoute() {
+        return bestRoute.length > 0;
+    }
+
+    /**
+     * Gets the IDs of the edges on the best route
+     * @return edge IDs, empty if there is no best route
+     */
+    public int[] getBestRouteEdgeIDs() {
+        int[] ids = new int[bestRoute.length];
+        for (int i = 0; i < bestRoute.length; i++) {
+            ids[i] = csr.getEdgeID(bestRoute[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * Gets the edges on the best route. The array is replaced rather than
+     * changed when the best route changes, so it may be kept.
+     * @return edge indices in the compiled graph, empty if there is no best route
+     */
+    public int[] getBestRoute() {
+        return bestRoute;
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public int getMaxAnts() {
+        return MAXANTS;
+    }
+
+    public void setMaxAnts(int maxAnts) {
+        this.MAXANTS = maxAnts;
+    }
+
+    public double getPheromoneMultiplier() {
+        return PHERMULTIPLIER;
+    }
+
+    public void setPheromoneMultiplier(double pheromoneMultiplier) {
+        this.PHERMULTIPLIER = pheromoneMultiplier;
+    }
+
+    public double getEvaporation() {
+        return evaporation;
+    }
+
+    /**
+     * Sets the fraction of pheromone kept on each edge every second
+     * @param evaporation - fraction kept, above 0 and at most 1
+     */
+    public void setEvaporation(double evaporation) {
+        if (!(evaporation > 0 && evaporation <= 1)) {
+            throw new IllegalArgumentException("Evaporation must be above 0 and at most 1");
+        }
+        this.evaporation = evaporation;
+    }
+
+    public long getRuntime() {
+        return simulationRuntime;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the master seed and restarts the random streams from it. Runs
+     * started from the same seed, graph and settings make the same choices;
+     * reset() does not restart the streams, so repeated runs differ.
+     * @param seed - master seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        seedStreams();
+    }
+
+    /**
+     * Gets the random stream used for generating nodes
+     * @return generator random stream
+     */
+    public SplittableRandom getGeneratorRandom() {
+        return generatorRandom;
+    }
+
+    /**
+     * Restarts the ant and generator random streams from the master seed
+     */
+    private void seedStreams() {
+        SplittableRandom master = new SplittableRandom(seed);
+        antRandom = master.split();
+        generatorRandom = master.split();
+    }
+
+    public int getStepsPerSecond() {
+        return stepsPerSecond;
+    }
+
+    public void setStepsPerSecond(int stepsPerSecond) {
+        this.stepsPerSecond = Math.max(1, stepsPerSecond);
+    }
+
+    public int getParallelism() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    /**
+     * Sets how many threads step the ants when not event driven. With more
+     * than one, the ants are split into chunks which are stepped in parallel.
+     * Pheromone deposits and completed routes are kept per chunk and applied
+     * in ant order once every chunk has finished, so a run depends on the
+     * seed but not on the number of threads. Runs differ from serial ones,
+     * where a deposit can change the choice of a later ant in the same step.
+     * @param threads - number of threads, 1 for serial stepping
+     */
+    public void setParallelism(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        if (threads == getParallelism()) {
+            return;
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+        pool = threads == 1 ? null : new ForkJoinPool(threads);
+    }
+
+    public void setListener(SimulationListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Rebuilds the compiled graph if the graph has changed since it was last
+     * built. Pheromone, the best route and ants are carried over by ID; ants
+     * whose route no longer exists are sent back to the source.
+     */
+    private void compile() {
+        if (csr != null && compiledVersion == graph.getVersion()) {
+            return;
+        }
+        CsrGraph old = csr;
+        PheromoneField oldPheromone = pheromone;
+
+        csr = CsrGraph.fromGraph(graph);
+        compiledVersion = graph.getVersion();
+        pheromone = new PheromoneField(csr);
+        pheromone.setLazy(lazyEvaporation);
+        roulette = new RouletteTable(csr, pheromone);
+        for (int e = 0; e < csr.getEdgeCount(); e++) {
+            int oldIndex = old == null ? -1 : old.getEdgeIndex(csr.getEdgeID(e));
+            if (oldIndex != -1) {
+                pheromone.load(e, oldPheromone.get(oldIndex));
+            } else {
+                pheromone.load(e, graph.getEdges().get(e).getPheromone());
+            }
+        }
+
+        if (old == null) {
+            return;
+        }
+        // Ants may be removed or sent back to the source
+        scheduled = false;
+
+        // Best route
+        int[] route = new int[bestRoute.length];
+        for (int i = 0; i < route.length; i++) {
+            route[i] = csr.getEdgeIndex(old.getEdgeID(bestRoute[i]));
+            if (route[i] == -1) {
+                route = new int[0];
+                break;
+            }
+        }
+        setBestRoute(route);
+
+        // Ants - routes only make sense for the same source and destination
+        boolean sameEnds = sameNode(old, old.getSource(), csr.getSource())
+                && sameNode(old, old.getDestination(), csr.getDestination());
+        Iterator<AntAgent> it = ants.iterator();
+        while (it.hasNext()) {
+            AntAgent a = it.next();
+            if (!sameEnds || !a.remap(old, csr)) {
+                if (csr.getSource() != -1) {
+                    a.respawn(csr, csr.getSource());
+                } else {
+                    antPool.add(a);
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a node of the old compiled graph is the same node in the
+     * current one
+     * @param old - old compiled graph
+     * @param oldNode - node index in the old graph, or -1
+     * @param node - node index in the current graph, or -1
+     * @return true if both are the same node or both are unset
+     */
+    private boolean sameNode(CsrGraph old, int oldNode, int node) {
+        if (oldNode == -1 || node == -1) {
+            return oldNode == node;
+        }
+        return old.getNodeID(oldNode) == csr.getNodeID(node);
+    }
+
+    /**
+     * Checks source and destination are set and connected so ants have
+     * somewhere to walk
+     * @return true if the simulation can be started
+     */
+    public boolean isRunnable() {
+        compile();
+        int source = csr.getSource();
+        int dest = csr.getDestination();
+        return source != -1 && dest != -1 && csr.getEdgeCount() > 0
+                && csr.getDegree(source) > 0 && csr.getDegree(dest) > 0;
+    }
+
+    /**
+     * Adds ants at the source node until MAXANTS is reached
+     */
+    public void spawnAnts() {
+        compile();
+        while (ants.size() < MAXANTS) {
+            if (antPool.isEmpty()) {
+                ants.add(new AntAgent(uniqueAntID, csr, csr.getSource(), antRandom.split()));
+            } else {
+                AntAgent a = antPool.remove(antPool.size() - 1);
+                a.reuse(uniqueAntID, csr, csr.getSource(), antRandom.split());
+                ants.add(a);
+            }
+            uniqueAntID++;
+        }
+        scheduled = false;
+    }
+
+    /**
+     * Removes all ants, pheromone, traffic and the best route, and sets the
+     * runtime back to zero. Removed ants are kept for reuse.
+     */
+    public void reset() {
+        antPool.addAll(ants);
+        ants.clear();
+
+        // Remove pheromone & traffic
+        for (GraphEdge edge : graph.getEdges()) {
+            edge.setPheromone(1.0);
+            edge.setTraffic(1.0);
+        }
+        // Rebuilt from the edges on next use
+        csr = null;
+        pheromone = null;
+        roulette = null;
+
+        // Reset best route details
+        setBestRoute(new int[0]);
+        stagnationCounter = 0;
+
+        // Reset ID counters
+        uniqueAntID = 0;
+
+        // Reset shortest route
+        shortestRoute = Double.MAX_VALUE;
+
+        // Reset runtime
+        simulationRuntime = 0;
+        stepsThisSecond = 0;
+        time = 0;
+        metrics.reset();
+        scheduled = false;
+    }
+
+    /**
+     * Copies a traffic change made to a GraphEdge over to the compiled graph
+     * @param edge - edge whose traffic changed
+     */
+    public void updateTraffic(GraphEdge edge) {
+        if (csr != null) {
+            int e = csr.getEdgeIndex(edge.getEdgeID());
+            if (e != -1) {
+                csr.setTraffic(e, edge.getTraffic());
+                if (bestRouteEdges.get(e)) {
+                    // Best route cost has changed
+                    bestRouteCost = Double.NaN;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the current pheromone back to the GraphEdges, e.g. before saving
+     */
+    public void storePheromone() {
+        compile();
+        for (int e = 0; e < csr.getEdgeCount(); e++) {
+            graph.getEdges().get(e).setPheromone(pheromone.get(e));
+        }
+    }
+
+    /**
+     * Clears the best route if it uses any of the given edges, e.g. because
+     * they have been removed from the graph
+     * @param removedEdges - edges removed
+     * @return true if the best route was cleared
+     */
+    public boolean clearBestRouteIfUsed(List<GraphEdge> removedEdges) {
+        if (bestRoute.length == 0) {
+            return false;
+        }
+        for (GraphEdge e : removedEdges) {
+            int edge = csr.getEdgeIndex(e.getEdgeID());
+            if (edge != -1 && bestRouteEdges.get(edge)) {
+                setBestRoute(new int[0]);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the cost of the best route, or -1 if there is none
+     * @return cost
+     */
+    public double getBestRouteCost() {
+        if (bestRoute.length == 0) {
+            return -1;
+        }
+        compile();
+        if (Double.isNaN(bestRouteCost)) {
+            bestRouteCost = 0;
+            for (int e : bestRoute) {
+                bestRouteCost += csr.getCost(e);
+            }
+        }
+        return bestRouteCost;
+    }
+
+    /**
+     * Takes a route found elsewhere, e.g. by another colony on the same
+     * graph, as the best route if it is better than the current one
+     * @param edgeIDs - IDs of the edges on the route, source to destination
+     * @return true if the route became the best route
+     */
+    public boolean offerBestRoute(int[] edgeIDs) {
+        compile();
+        if (edgeIDs.length == 0) {
+            return false;
+        }
+        int[] route = new int[edgeIDs.length];
+        double cost = 0;
+        for (int i = 0; i < edgeIDs.length; i++) {
+            route[i] = csr.getEdgeIndex(edgeIDs[i]);
+            if (route[i] == -1) {
+                return false;
+            }
+            cost += csr.getCost(route[i]);
+        }
+        if (bestRoute.length > 0 && Math.round(cost) >= Math.round(getBestRouteCost())) {
+            return false;
+        }
+        shortestRoute = Math.round(cost);
+        setBestRoute(route);
+        stagnationCounter = 0;
+        metrics.improved(simulationRuntime);
+        if (listener != null) {
+            StringBuilder mes = new StringBuilder();
+            for (int id : edgeIDs) {
+                mes.append(mes.length() == 0 ? "" : ",").append(id);
+            }
+            listener.newBestRoute(edgeIDs.clone(), shortestRoute, mes.toString());
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the best route
+     * @param route - edge indices, empty for none
+     */
+    private void setBestRoute(int[] route) {
+        bestRoute = route;
+        bestRouteEdges.clear();
+        for (int e : route) {
+            bestRouteEdges.set(e);
+        }
+        bestRouteCost = Double.NaN;
+    }
+
+    /**
+     * Moves the simulated clock on by one step. Once every stepsPerSecond
+     * steps the pheromone is updated and the runtime goes up by 1 second.
+     * In the event driven mode ant positions are not updated, call
+     * updatePositions() before drawing.
+     * @return true if a second of runtime has passed
+     */
+    public boolean tick() {
+        if (eventDriven) {
+            advance(1);
+        } else {
+            step();
+        }
+        metrics.ticked(1);
+
+        stepsThisSecond++;
+        if (stepsThisSecond >= stepsPerSecond) {
+            endSecond();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Runs the simulated clock to the end of the current second, as fast as
+     * possible
+     */
+    public void runSecond() {
+        int remaining = stepsPerSecond - stepsThisSecond;
+        if (eventDriven) {
+            advance(remaining);
+        } else {
+            for (int i = 0; i < remaining; i++) {
+                step();
+            }
+        }
+        metrics.ticked(remaining);
+        endSecond();
+    }
+
+    /**
+     * Updates pheromone and the runtime at the end of a simulated second
+     */
+    private void endSecond() {
+        stepsThisSecond = 0;
+        updatePheromone();
+        incrementRuntime();
+        metrics.secondEnded(simulationRuntime, stagnationCounter, pheromone, ants);
+    }
+
+    /**
+     * Increments the runtime by 1 second
+     */
+    public void incrementRuntime() {
+        simulationRuntime += 1;
+    }
+
+    /**
+     * Gets the cost of an ant's completed route and sets best route if a new
+     * one is found.
+     * @param a - ant at the destination
+     * @return cost
+     */
+    private double calculateRouteCost(AntAgent a) {
+        double tempCost = a.getRouteCost();
+
+        if (bestRoute.length == 0
+                || Math.round(tempCost) < Math.round(getBestRouteCost())) {
+            // First or better solution so save it
+            shortestRoute = Math.round(tempCost);
+            IntStack routeEdges = a.getEdgesTaken();
+            int[] route = new int[routeEdges.size()];
+            for (int i = 0; i < route.length; i++) {
+                route[i] = routeEdges.get(i);
+            }
+            setBestRoute(route);
+            metrics.improved(simulationRuntime);
+
+            // Reset stagnation counter
+            stagnationCounter = 0;
+
+            if (listener != null) {
+                int[] ids = getBestRouteEdgeIDs();
+                StringBuilder mes = new StringBuilder();
+                for (int id : ids) {
+                    mes.append(mes.length() == 0 ? "" : ",").append(id);
+                }
+                listener.newBestRoute(ids, shortestRoute, mes.toString());
+            }
+        } else if (Math.round(tempCost) == Math.round(getBestRouteCost())) {
+            if (listener != null) {
+                listener.followingBestRoute();
+            }
+        }
+
+        return tempCost;
+    }
+
+    /**
+     * Updates ants locations
+     */
+    public void step() {
+        if (eventDriven) {
+            advance(1);
+            updatePositions();
+            return;
+        }
+
+        compile();
+        if (csr.getSource() == -1 || csr.getDestination() == -1) {
+            return;
+        }
+
+        if (pool != null) {
+            stepParallel();
+            return;
+        }
+
+        // Manage ants movements
+        for (int i = 0; i < ants.size(); i++) {
+            moveAnt(ants.get(i), null);
+        }
+    }
+
+    /**
+     * Steps the ants in chunks on the pool, then applies what each chunk
+     * gathered in ant order
+     */
+    private void stepParallel() {
+        // Bring the roulette wheels up to date so the ants only read them
+        if (lazyEvaporation) {
+            // Every wheel is out of date after evaporation, so only rebuild
+            // those the ants can choose from this step
+            for (int i = 0; i < ants.size(); i++) {
+                AntAgent a = ants.get(i);
+                int node = a.getNextNode() != -1 ? a.getNextNode() : a.getCurrentNode();
+                if (node != -1) {
+                    roulette.refresh(node, node + 1);
+                }
+            }
+        } else {
+            pool.invoke(new RangeTask(0, csr.getNodeCount(), NODECHUNK, roulette::refresh));
+        }
+
+        int chunks = (ants.size() + ANTCHUNK - 1) / ANTCHUNK;
+        if (stepBuffers.length < chunks) {
+            int old = stepBuffers.length;
+            stepBuffers = Arrays.copyOf(stepBuffers, Math.max(chunks, old * 2));
+            for (int c = old; c < stepBuffers.length; c++) {
+                stepBuffers[c] = new StepBuffer();
+            }
+        }
+        pool.invoke(new RangeTask(0, chunks, 1, (first, last) -> {
+            for (int c = first; c < last; c++) {
+                StepBuffer buffer = stepBuffers[c];
+                buffer.clear();
+                int end = Math.min(ants.size(), (c + 1) * ANTCHUNK);
+                for (int i = c * ANTCHUNK; i < end; i++) {
+                    moveAnt(ants.get(i), buffer);
+                }
+            }
+        }));
+
+        for (int c = 0; c < chunks; c++) {
+            StepBuffer buffer = stepBuffers[c];
+            for (int k = 0; k < buffer.completedCount; k++) {
+                calculateRouteCost(buffer.completed[k]);
+            }
+            for (int k = 0; k < buffer.depositCount; k++) {
+                pheromone.add(buffer.depositEdges[k], buffer.depositAmounts[k], false);
+            }
+        }
+    }
+
+    /**
+     * Moves an ant for one step
+     * @param a - ant
+     * @param buffer - where deposits and completed routes are kept for
+     * later, or null to apply them straight away
+     */
+    private void moveAnt(AntAgent a, StepBuffer buffer) {
+        if (a.getNextNode() == -1) {
+            // Pick where to go next
+            startMove(a);
+        } else if (Math.abs(a.getX() - csr.getNodeX(a.getNextNode())) < 5 &&
+                Math.abs(a.getY() - csr.getNodeY(a.getNextNode())) < 5) {
+            // Close enough to the next node so jump to it
+            a.jumpTo(csr, a.getNextNode());
+            arrive(a, buffer);
+        } else {
+            // Move
+            a.travel(csr);
+        }
+    }
+
+    /**
+     * Sets the next node of an ant which does not have one
+     * @param a - ant
+     */
+    private void startMove(AntAgent a) {
+        if (a.isOutwardBound()) {
+            // Choose an edge if ant doesn't have a nextNode
+            a.chooseEdge(csr, roulette);
+        } else {
+            a.setNextNode(a.peekNodeTaken());
+            // Set current edge
+            a.setCurrentEdge(a.peekEdgeTaken());
+        }
+    }
+
+    /**
+     * Moves an ant onto its next node and chooses again or completes
+     * @param a - ant
+     */
+    private void arrive(AntAgent a) {
+        arrive(a, null);
+    }
+
+    /**
+     * Moves an ant onto its next node and chooses again or completes
+     * @param a - ant
+     * @param buffer - where deposits and completed routes are kept for
+     * later, or null to apply them straight away
+     */
+    private void arrive(AntAgent a, StepBuffer buffer) {
+        metrics.antHopped();
+        int sourceNode = csr.getSource();
+        int destNode = csr.getDestination();
+
+        if (a.isOutwardBound()) {
+            // Keep track of the last node in case we need to find the edge between current and last
+            int tempNodeForPrevCheck = a.getCurrentNode();
+
+            a.setCurrentNode(a.getNextNode());
+
+            // If at destination, return to source
+            if (a.getCurrentNode() == destNode) {
+
+                // Push the node
+                a.pushNodeTaken(destNode);
+                // Push the edge
+                int last = csr.findEdge(destNode, tempNodeForPrevCheck);
+                if (last != -1) {
+                    a.pushEdgeTaken(last, csr.getCost(last));
+                }
+
+                // Store route cost for pheromone update and output route details
+                metrics.tourCompleted();
+                if (buffer == null) {
+                    a.setPrevRouteLength(calculateRouteCost(a));
+                } else {
+                    a.setPrevRouteLength(a.getRouteCost());
+                    buffer.addCompleted(a);
+                }
+
+                // Reset for return
+                a.setNextNode(-1);
+                // Return to source
+                a.setOutwardBound(false);
+            } else if (csr.findEdge(a.getCurrentNode(), destNode) != -1) {
+                // Choose the destination node
+                a.setNextNode(destNode);
+
+                // Work out and set current edge
+                a.setCurrentEdge(csr.findEdge(destNode, a.getCurrentNode()));
+
+            } else {
+                // If ant is back at source, reset it
+                if (a.getCurrentNode() == sourceNode) {
+                    a.reset();
+                }
+
+                // Choose an edge if we are not
+                a.chooseEdge(csr, roulette);
+            }
+        } else {
+            a.setCurrentNode(a.getNextNode());
+
+            // If at source, search for destination
+            if (a.getCurrentNode() == sourceNode) {
+
+                // Reset for return
+                a.setNextNode(-1);
+                // Return to destination
+                a.setOutwardBound(true);
+            } else if (a.getNodesTaken().size() == 0 && a.getEdgesTaken().size() == 0) {
+                // Check for empty stack, if so we are next to source
+                a.setNextNode(sourceNode);
+
+                // Work out and set current edge
+                a.setCurrentEdge(csr.findEdge(sourceNode, a.getCurrentNode()));
+            } else {
+                // Pop node and edge
+                a.popNodeTaken();
+                // Set current edge
+                a.setCurrentEdge(a.peekEdgeTaken());
+                if (algorithm == Algorithm.AS) {
+                    // Pop and add pheromone
+                    int edge = a.popEdgeTaken();
+                    double amount = pheromoneConstant/a.getPrevRouteLength() * PHERMULTIPLIER;
+                    if (buffer == null) {
+                        pheromone.add(edge, amount, false);
+                    } else {
+                        buffer.addDeposit(edge, amount);
+                    }
+                } else {
+                    // Pop
+                    a.popEdgeTaken();
+                }
+
+                // Set the next node as the top of the node stack
+                if (!a.getNodesTaken().isEmpty()) {
+                    a.setNextNode(a.peekNodeTaken());
+                }
+            }
+        }
+    }
+
+    public boolean isEventDriven() {
+        return eventDriven;
+    }
+
+    /**
+     * Switches between moving ants a few pixels per step and the event
+     * driven mode, where each ant's arrival at its next node is worked out
+     * from the edge cost and traffic and the simulation jumps from one
+     * arrival to the next. One unit of time is one step.
+     * @param eventDriven - true for the event driven mode
+     */
+    public void setEventDriven(boolean eventDriven) {
+        if (this.eventDriven == eventDriven) {
+            return;
+        }
+        compile();
+        if (eventDriven) {
+            // Carry on from where each ant has got to on its edge
+            for (AntAgent a : ants) {
+                if (a.getNextNode() != -1 && a.getCurrentEdge() != -1) {
+                    double total = getTravelTime(a.getCurrentEdge());
+                    double remaining = Math.hypot(a.getX() - csr.getNodeX(a.getNextNode()),
+                            a.getY() - csr.getNodeY(a.getNextNode())) / csr.getBaseCost(a.getCurrentEdge()) * total;
+                    a.setTravelTimes(time - (total - remaining), time + remaining);
+                }
+            }
+        } else {
+            updatePositions();
+        }
+        this.eventDriven = eventDriven;
+        scheduled = false;
+    }
+
+    public boolean isLazyEvaporation() {
+        return lazyEvaporation;
+    }
+
+    /**
+     * Switches between evaporating the pheromone on every edge each second
+     * and evaporating each edge only when an ant next reads or deposits on
+     * it, which is much cheaper on large graphs where few edges are used.
+     * The pheromone is the same either way.
+     * @param lazyEvaporation - true for lazy evaporation
+     */
+    public void setLazyEvaporation(boolean lazyEvaporation) {
+        this.lazyEvaporation = lazyEvaporation;
+        if (pheromone != null) {
+            pheromone.setLazy(lazyEvaporation);
+        }
+    }
+
+    /**
+     * Gets the time in the event driven mode
+     * @return time in steps
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Moves the event driven simulation forward, handling every arrival up
+     * to the new time in order
+     * @param duration - time to move forward by, in steps
+     */
+    public void advance(double duration) {
+        compile();
+        double end = time + duration;
+        if (csr.getSource() == -1 || csr.getDestination() == -1) {
+            time = end;
+            return;
+        }
+        if (!scheduled) {
+            schedule();
+        }
+
+        while (!arrivals.isEmpty() && arrivals.peekTime() <= end) {
+            time = arrivals.peekTime();
+            int i = arrivals.poll();
+            AntAgent a = ants.get(i);
+
+            if (a.getNextNode() != -1) {
+                arrive(a);
+            }
+            // Moves that take no time, e.g. turning round at the destination
+            while (a.getNextNode() == -1 || a.getNextNode() == a.getCurrentNode()) {
+                if (a.getNextNode() == -1) {
+                    startMove(a);
+                } else {
+                    arrive(a);
+                }
+            }
+
+            double arrival = time + getTravelTime(a.getCurrentEdge());
+            a.setTravelTimes(time, arrival);
+            arrivals.add(arrival, i);
+        }
+        time = end;
+    }
+
+    /**
+     * Sets the x and y position of every ant for the current time in the
+     * event driven mode, e.g. for drawing
+     */
+    public void updatePositions() {
+        compile();
+        for (int i = 0; i < ants.size(); i++) {
+            ants.get(i).moveTo(csr, time);
+        }
+    }
+
+    /**
+     * Gets the number of steps an ant takes to cross an edge
+     * @param edge - edge index
+     * @return time in steps
+     */
+    private double getTravelTime(int edge) {
+        return csr.getCost(edge) / AntAgent.PIXELSPERSTEP;
+    }
+
+    /**
+     * Fills the arrival queue from the ants' arrival times. Ants without a
+     * next node are due now.
+     */
+    private void schedule() {
+        arrivals.clear();
+        for (int i = 0; i < ants.size(); i++) {
+            AntAgent a = ants.get(i);
+            if (a.getNextNode() == -1) {
+                arrivals.add(time, i);
+            } else {
+                arrivals.add(Math.max(time, a.getArrivalTime()), i);
+            }
+        }
+        scheduled = true;
+    }
+
+    /**
+     * Updates pheromone
+     * Note:AS adds pheromone within step()
+     */
+    public void updatePheromone() {
+        compile();
+        // Switch on algorithm so correct pheromone update is used.
+        if (algorithm == Algorithm.AS) {
+            //Pheromone decay
+            long start = System.nanoTime();
+            pheromone.evaporate(evaporation, false);
+            metrics.evaporated(System.nanoTime() - start);
+        } else if (algorithm == Algorithm.MMAS) {
+            // Deposit on best route and check for stagnation
+            if (bestRoute.length > 0) {
+                double routeLength = getBestRouteCost();
+
+                for (int e : bestRoute) {
+                    pheromone.add(e, (pheromoneConstant/routeLength) * PHERMULTIPLIER, true);
+                }
+
+                stagnationCounter++;
+                // If route best route is stagnent for 20 iterations refresh all edges
+                if (stagnationCounter == stagnationSecondLimit) {
+                    if (listener != null) {
+                        listener.pheromoneRefreshed(stagnationSecondLimit);
+                    }
+                    for (int e = 0; e < csr.getEdgeCount(); e++) {
+                        if (!bestRouteEdges.get(e)) {
+                            pheromone.add(e, 10, true);
+                        }
+                    }
+                    stagnationCounter = 0;
+                }
+            }
+
+            //Pheromone decay
+            long start = System.nanoTime();
+            pheromone.evaporate(evaporation, true);
+            metrics.evaporated(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Action over a range of indices
+     */
+    private interface RangeAction {
+        void run(int from, int to);
+    }
+
+    /**
+     * Runs an action over a range of indices, split in halves and run in
+     * parallel down to pieces of at most grain indices
+     */
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final RangeAction action;
+
+        RangeTask(int from, int to, int grain, RangeAction action) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                action.run(from, to);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RangeTask(from, mid, grain, action), new RangeTask(mid, to, grain, action));
+            }
+        }
+    }
+
+    /**
+     * Pheromone deposits and completed routes gathered by one chunk of ants
+     * during a parallel step
+     */
+    private static class StepBuffer {
+        private int[] depositEdges = new int[16];
+        private double[] depositAmounts = new double[16];
+        private int depositCount = 0;
+        private AntAgent[] completed = new AntAgent[4];
+        private int completedCount = 0;
+
+        void clear() {
+            depositCount = 0;
+            Arrays.fill(completed, 0, completedCount, null);
+            completedCount = 0;
+        }
+
+        void addDeposit(int edge, double amount) {
+            if (depositCount == depositEdges.length) {
+                depositEdges = Arrays.copyOf(depositEdges, depositCount * 2);
+                depositAmounts = Arrays.copyOf(depositAmounts, depositCount * 2);
+            }
+            depositEdges[depositCount] = edge;
+            depositAmounts[depositCount] = amount;
+            depositCount++;
+        }
+
+        void addCompleted(AntAgent a) {
+            if (completedCount == completed.length) {
+                completed = Arrays.copyOf(completed, completedCount * 2);
+            }
+            completed[completedCount++] = a;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.readyplayer2.aco.dynamic.model;
+
+/**
+ * Receives notable events from a simulation, e.g. so they can be logged or
+ * drawn
+ * @author ReadyPlayer2
+ */
+public interface SimulationListener {
+
+    /**
+     * Called when an ant finds a route shorter than the current best
+     * @param route - IDs of the edges on the new best route
+     * @param cost - rounded cost of the new best route
+     * @param edgeIDs - comma separated edge IDs of the route
+     */
+    void newBestRoute(int[] route, double cost, String edgeIDs);
+
+    /**
+     * Called when an ant completes a route with the same cost as the best
+     */
+    void followingBestRoute();
+
+    /**
+     * Called when MMAS refreshes pheromone after the best route stagnates
+     * @param stagnantSeconds - how long the best route was stagnant for
+     */
+    void pheromoneRefreshed(int stagnantSeconds);
+}
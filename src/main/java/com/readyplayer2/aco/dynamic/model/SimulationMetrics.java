@@ -0,0 +1,326 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and gauges describing a running simulation, which can be
+ * published as a JMX MBean or read directly in a headless run.
+ *
+ * The simulation only adds to LongAdders while stepping, so counting takes
+ * no locks and scales across the parallel stepping threads. Everything else
+ * is worked out once per simulated second on the simulation thread and kept
+ * in volatile fields for readers on any thread. The pheromone and ant
+ * gauges walk every edge and ant, so they are only worked out when something
+ * has read one since the last second.
+ * @author ReadyPlayer2
+ */
+public class SimulationMetrics implements SimulationMetricsMXBean {
+    // Shortest time rates are measured over
+    private static final long RATEWINDOW = 1_000_000_000; // ns
+
+    // Counted while stepping
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder antHops = new LongAdder();
+    private final LongAdder completedTours = new LongAdder();
+
+    // Rates, measured on the simulation thread
+    private long windowStart = System.nanoTime();
+    private long windowTicks = 0;
+    private long windowHops = 0;
+    private long windowTours = 0;
+    private volatile long ratesTime = windowStart;
+    private volatile double ticksPerSecond = 0;
+    private volatile double antHopsPerSecond = 0;
+    private volatile double completedToursPerSecond = 0;
+
+    private volatile long runtime = 0;
+    // Runtime the best route last improved at, -1 for none
+    private volatile long improvedRuntime = -1;
+    private volatile int stagnationCounter = 0;
+    private volatile long lastEvaporationNanos = 0;
+
+    // Gauges, only sampled when asked for
+    private volatile boolean gaugesWanted = true;
+    private volatile double pheromoneMin = Double.NaN;
+    private volatile double pheromoneMax = Double.NaN;
+    private volatile double pheromoneMean = Double.NaN;
+    private volatile double pheromoneEntropy = Double.NaN;
+    private volatile int outwardAnts = 0;
+    private volatile int returningAnts = 0;
+    private volatile int edgeCount = 0;
+
+    private ObjectName registeredName;
+
+    /**
+     * Publishes the metrics on the platform MBean server
+     * @param name - name to tell simulations in the same JVM apart
+     * @throws JMException if the MBean can not be registered, e.g. the name
+     * is already taken
+     */
+    public synchronized void register(String name) throws JMException {
+        if (registeredName != null) {
+            return;
+        }
+        ObjectName objectName = new ObjectName("com.readyplayer2.aco.dynamic:type=Simulation,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        registeredName = objectName;
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server, if registered
+     */
+    public synchronized void unregister() {
+        if (registeredName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(registeredName);
+        } catch (JMException jme) {
+            // Already gone
+        }
+        registeredName = null;
+    }
+
+    /**
+     * Counts simulated steps
+     * @param count - number of steps
+     */
+    void ticked(int count) {
+        ticks.add(count);
+    }
+
+    /**
+     * Counts an ant arriving at a node
+     */
+    void antHopped() {
+        antHops.increment();
+    }
+
+    /**
+     * Counts an ant reaching the destination
+     */
+    void tourCompleted() {
+        completedTours.increment();
+    }
+
+    /**
+     * Records a new best route
+     * @param runtime - runtime it was found at
+     */
+    void improved(long runtime) {
+        improvedRuntime = runtime;
+    }
+
+    /**
+     * Records how long an evaporation pass took
+     * @param nanos - time taken
+     */
+    void evaporated(long nanos) {
+        lastEvaporationNanos = nanos;
+    }
+
+    /**
+     * Clears the best route and runtime after the simulation is reset. The
+     * counters carry on.
+     */
+    void reset() {
+        runtime = 0;
+        improvedRuntime = -1;
+        stagnationCounter = 0;
+    }
+
+    /**
+     * Updates the rates and, if wanted, the gauges at the end of a simulated
+     * second. Called on the simulation thread.
+     * @param runtime - runtime after the second
+     * @param stagnationCounter - seconds the best route has been stagnant
+     * @param pheromone - pheromone on the compiled graph
+     * @param ants - ants in the simulation
+     */
+    void secondEnded(long runtime, int stagnationCounter, PheromoneField pheromone, List<AntAgent> ants) {
+        this.runtime = runtime;
+        this.stagnationCounter = stagnationCounter;
+
+        long now = System.nanoTime();
+        long elapsed = now - windowStart;
+        if (elapsed >= RATEWINDOW) {
+            long t = ticks.sum();
+            long h = antHops.sum();
+            long c = completedTours.sum();
+            ticksPerSecond = (t - windowTicks) * 1e9 / elapsed;
+            antHopsPerSecond = (h - windowHops) * 1e9 / elapsed;
+            completedToursPerSecond = (c - windowTours) * 1e9 / elapsed;
+            windowTicks = t;
+            windowHops = h;
+            windowTours = c;
+            windowStart = now;
+            ratesTime = now;
+        }
+
+        if (gaugesWanted) {
+            gaugesWanted = false;
+            samplePheromone(pheromone);
+            int outward = 0;
+            for (int i = 0; i < ants.size(); i++) {
+                if (ants.get(i).isOutwardBound()) {
+                    outward++;
+                }
+            }
+            outwardAnts = outward;
+            returningAnts = ants.size() - outward;
+        }
+    }
+
+    /**
+     * Works out the pheromone gauges
+     * @param pheromone - pheromone on the compiled graph
+     */
+    private void samplePheromone(PheromoneField pheromone) {
+        int size = pheromone.size();
+        edgeCount = size;
+        if (size == 0) {
+            pheromoneMin = pheromoneMax = pheromoneMean = pheromoneEntropy = Double.NaN;
+            return;
+        }
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        double sum = 0;
+        for (int e = 0; e < size; e++) {
+            double value = pheromone.get(e);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+        }
+        // Entropy of the share of the total on each edge
+        double entropy = 0;
+        for (int e = 0; e < size; e++) {
+            double share = pheromone.get(e) / sum;
+            if (share > 0) {
+                entropy -= share * Math.log(share);
+            }
+        }
+        pheromoneMin = min;
+        pheromoneMax = max;
+        pheromoneMean = sum / size;
+        pheromoneEntropy = entropy;
+    }
+
+    /**
+     * Gets a rate, or 0 if the simulation has not ended a second for a while
+     * @param rate - last measured rate
+     * @return rate
+     */
+    private double current(double rate) {
+        return System.nanoTime() - ratesTime > 2 * RATEWINDOW ? 0 : rate;
+    }
+
+    @Override
+    public long getTicks() {
+        return ticks.sum();
+    }
+
+    @Override
+    public double getTicksPerSecond() {
+        return current(ticksPerSecond);
+    }
+
+    @Override
+    public long getAntHops() {
+        return antHops.sum();
+    }
+
+    @Override
+    public double getAntHopsPerSecond() {
+        return current(antHopsPerSecond);
+    }
+
+    @Override
+    public long getCompletedTours() {
+        return completedTours.sum();
+    }
+
+    @Override
+    public double getCompletedToursPerSecond() {
+        return current(completedToursPerSecond);
+    }
+
+    @Override
+    public long getRuntime() {
+        return runtime;
+    }
+
+    @Override
+    public long getSecondsSinceImprovement() {
+        long improved = improvedRuntime;
+        return improved == -1 ? -1 : Math.max(0, runtime - improved);
+    }
+
+    @Override
+    public int getStagnationCounter() {
+        return stagnationCounter;
+    }
+
+    @Override
+    public double getLastEvaporationMillis() {
+        return lastEvaporationNanos / 1e6;
+    }
+
+    @Override
+    public double getPheromoneMin() {
+        gaugesWanted = true;
+        return pheromoneMin;
+    }
+
+    @Override
+    public double getPheromoneMax() {
+        gaugesWanted = true;
+        return pheromoneMax;
+    }
+
+    @Override
+    public double getPheromoneMean() {
+        gaugesWanted = true;
+        return pheromoneMean;
+    }
+
+    @Override
+    public double getPheromoneEntropy() {
+        gaugesWanted = true;
+        return pheromoneEntropy;
+    }
+
+    @Override
+    public int getOutwardAnts() {
+        gaugesWanted = true;
+        return outwardAnts;
+    }
+
+    @Override
+    public int getReturningAnts() {
+        gaugesWanted = true;
+        return returningAnts;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        gaugesWanted = true;
+        return edgeCount;
+    }
+
+    @Override
+    public double getHeapUsedPerEdge() {
+        gaugesWanted = true;
+        int edges = edgeCount;
+        if (edges == 0) {
+            return Double.NaN;
+        }
+        Runtime jvm = Runtime.getRuntime();
+        return (double) (jvm.totalMemory() - jvm.freeMemory()) / edges;
+    }
+}
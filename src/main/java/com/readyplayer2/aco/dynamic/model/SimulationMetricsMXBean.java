@@ -0,0 +1,54 @@
+package com.readyplayer2.aco.dynamic.model;
+
+/**
+ * Management interface of SimulationMetrics, as seen over JMX (e.g. in
+ * JConsole or VisualVM). Rates are per second of real time.
+ * @author ReadyPlayer2
+ */
+public interface SimulationMetricsMXBean {
+
+    long getTicks();
+
+    double getTicksPerSecond();
+
+    long getAntHops();
+
+    double getAntHopsPerSecond();
+
+    long getCompletedTours();
+
+    double getCompletedToursPerSecond();
+
+    long getRuntime();
+
+    /**
+     * Simulated seconds since the best route last improved
+     * @return seconds, or -1 if there is no best route
+     */
+    long getSecondsSinceImprovement();
+
+    int getStagnationCounter();
+
+    double getLastEvaporationMillis();
+
+    double getPheromoneMin();
+
+    double getPheromoneMax();
+
+    double getPheromoneMean();
+
+    /**
+     * Shannon entropy of the pheromone spread over the edges, in nats. Low
+     * when the pheromone is concentrated on a few edges.
+     * @return entropy
+     */
+    double getPheromoneEntropy();
+
+    int getOutwardAnts();
+
+    int getReturningAnts();
+
+    int getEdgeCount();
+
+    double getHeapUsedPerEdge();
+}
@@ -0,0 +1,222 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Steps a simulation on its own worker thread so drawing and input on another
+ * thread neither slow it down nor are slowed down by it.
+ *
+ * The worker publishes snapshots of the simulation which the drawing thread
+ * picks up with getSnapshot() without locking. Three snapshots are passed
+ * round: the one being drawn, the newest published one, and a spare which
+ * the worker fills next, so neither side waits for the other.
+ *
+ * Anything else which reads or changes the simulation or its graph while the
+ * worker is running must do so through runExclusive(). The worker holds the
+ * same lock while stepping, for at most BATCHTIME at a time.
+ * @author ReadyPlayer2
+ */
+public class SimulationRunner {
+    // Longest time the worker steps before letting others have the lock
+    private static final long BATCHTIME = 4_000_000; // ns
+    // Shortest time between snapshots published by the worker
+    private static final long PUBLISHINTERVAL = 8_000_000; // ns
+
+    private final Simulation simulation;
+    // Fair, so edits do not wait behind several batches
+    private final ReentrantLock lock = new ReentrantLock(true);
+
+    private Thread worker;
+    private volatile boolean running = false;
+    // Steps per second, infinite for as fast as possible
+    private volatile double stepRate;
+    // The worker stops once the runtime is past this
+    private volatile long runtimeLimit = Long.MAX_VALUE;
+
+    // Newest snapshot not yet picked up, and one free to be filled
+    private final AtomicReference<SimulationSnapshot> published = new AtomicReference<>();
+    private final AtomicReference<SimulationSnapshot> spare = new AtomicReference<>();
+    // Snapshot held by the reader, only used by the reading thread
+    private SimulationSnapshot current;
+
+    /**
+     * Creates a runner for a simulation, running in real time
+     * @param simulation - simulation to step
+     */
+    public SimulationRunner(Simulation simulation) {
+        this.simulation = simulation;
+        this.stepRate = simulation.getStepsPerSecond();
+    }
+
+    public Simulation getSimulation() {
+        return simulation;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Sets how fast the worker steps the simulation
+     * @param stepsPerSecond - steps per second of real time, infinite for as
+     * fast as possible
+     */
+    public void setStepRate(double stepsPerSecond) {
+        if (!(stepsPerSecond > 0)) {
+            throw new IllegalArgumentException("Step rate must be positive");
+        }
+        this.stepRate = stepsPerSecond;
+    }
+
+    /**
+     * Makes the worker stop by itself once the runtime passes a limit, e.g.
+     * for runs of a fixed length
+     * @param runtimeLimit - last runtime in seconds to run past, Long.MAX_VALUE for none
+     */
+    public void setRuntimeLimit(long runtimeLimit) {
+        this.runtimeLimit = runtimeLimit;
+    }
+
+    /**
+     * Starts stepping the simulation on the worker thread, if not already
+     */
+    public void start() {
+        if (running) {
+            return;
+        }
+        // Finish a worker which stopped by itself, and make sure there is a snapshot
+        stop();
+        runExclusive(this::publish);
+        running = true;
+        worker = new Thread(this::work, "Simulation");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops the worker thread and waits for it to finish its current batch.
+     * Must not be called from inside runExclusive().
+     */
+    public void stop() {
+        running = false;
+        if (worker == null) {
+            return;
+        }
+        LockSupport.unpark(worker);
+        boolean interrupted = false;
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        worker = null;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs an action while the worker is not stepping, e.g. to edit the graph
+     * @param action - action to run
+     */
+    public void runExclusive(Runnable action) {
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the newest snapshot of the simulation. While the worker is stopped
+     * a new snapshot is taken first, so changes made since are included. Only
+     * one thread may read snapshots, and a snapshot must not be used after
+     * the next call.
+     * @return snapshot
+     */
+    public SimulationSnapshot getSnapshot() {
+        if (!running) {
+            runExclusive(this::publish);
+        }
+        SimulationSnapshot next = published.getAndSet(null);
+        if (next != null) {
+            if (current != null) {
+                spare.set(current);
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    /**
+     * Steps the simulation at the step rate until stopped
+     */
+    private void work() {
+        long lastTime = System.nanoTime();
+        long lastPublish = lastTime - PUBLISHINTERVAL;
+        double stepsDue = 0;
+
+        while (running) {
+            long now = System.nanoTime();
+            double rate = stepRate;
+            int steps;
+            if (Double.isInfinite(rate)) {
+                steps = Integer.MAX_VALUE;
+            } else {
+                // Steps owed, at most 1 second behind
+                stepsDue = Math.min(stepsDue + (now - lastTime) / 1e9 * rate, Math.max(1, rate));
+                steps = (int) stepsDue;
+                stepsDue -= steps;
+            }
+            lastTime = now;
+
+            lock.lock();
+            try {
+                int done = 0;
+                while (done < steps && running && System.nanoTime() - now < BATCHTIME) {
+                    done++;
+                    if (simulation.tick() && simulation.getRuntime() > runtimeLimit) {
+                        running = false;
+                    }
+                }
+                if (done < steps && steps != Integer.MAX_VALUE) {
+                    // Carry on with the rest after letting others in
+                    stepsDue += steps - done;
+                }
+                if (!running || System.nanoTime() - lastPublish >= PUBLISHINTERVAL) {
+                    publish();
+                    lastPublish = System.nanoTime();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (running && steps != Integer.MAX_VALUE && stepsDue < 1) {
+                // Sleep until the next step is due
+                LockSupport.parkNanos((long) ((1 - stepsDue) / rate * 1e9));
+            }
+        }
+    }
+
+    /**
+     * Copies the simulation into the spare snapshot and publishes it. The
+     * lock must be held.
+     */
+    private void publish() {
+        SimulationSnapshot snapshot = spare.getAndSet(null);
+        if (snapshot == null) {
+            snapshot = new SimulationSnapshot();
+        }
+        snapshot.copyFrom(simulation);
+        SimulationSnapshot old = published.getAndSet(snapshot);
+        if (old != null) {
+            // Not picked up in time, fill it next
+            spare.set(old);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Copy of the parts of a simulation which are drawn: the compiled graph, ant
+ * positions, best route and runtime. Taken by a SimulationRunner so another
+ * thread can draw the simulation while it keeps running. A snapshot does not
+ * change while it is held by the reader; the runner reuses it afterwards.
+ * @author ReadyPlayer2
+ */
+public class SimulationSnapshot {
+    private CsrGraph graph;
+    private int antCount = 0;
+    private double[] antX = new double[0];
+    private double[] antY = new double[0];
+    private boolean[] outwardBound = new boolean[0];
+    // Best route as given by the simulation, and as a set of edge indices
+    private int[] bestRoute = new int[0];
+    private final BitSet bestRouteEdges = new BitSet();
+    private double bestRouteCost = Double.NaN;
+    private long runtime = 0;
+
+    /**
+     * Copies the current state of a simulation, growing the arrays if needed
+     * @param simulation - simulation to copy
+     */
+    void copyFrom(Simulation simulation) {
+        graph = simulation.getCsrGraph();
+        if (simulation.isEventDriven()) {
+            simulation.updatePositions();
+        }
+
+        List<AntAgent> ants = simulation.getAnts();
+        antCount = ants.size();
+        if (antX.length < antCount) {
+            int length = Math.max(antCount, antX.length * 2);
+            antX = Arrays.copyOf(antX, length);
+            antY = Arrays.copyOf(antY, length);
+            outwardBound = Arrays.copyOf(outwardBound, length);
+        }
+        for (int i = 0; i < antCount; i++) {
+            AntAgent a = ants.get(i);
+            antX[i] = a.getX();
+            antY[i] = a.getY();
+            outwardBound[i] = a.isOutwardBound();
+        }
+
+        // The route array is replaced when it changes
+        int[] route = simulation.getBestRoute();
+        if (route != bestRoute) {
+            bestRoute = route;
+            bestRouteEdges.clear();
+            for (int e : route) {
+                bestRouteEdges.set(e);
+            }
+        }
+        bestRouteCost = simulation.hasBestRoute() ? simulation.getBestRouteCost() : Double.NaN;
+        runtime = simulation.getRuntime();
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public int getAntCount() {
+        return antCount;
+    }
+
+    public double getAntX(int ant) {
+        return antX[ant];
+    }
+
+    public double getAntY(int ant) {
+        return antY[ant];
+    }
+
+    public boolean isOutwardBound(int ant) {
+        return outwardBound[ant];
+    }
+
+    public boolean hasBestRoute() {
+        return bestRoute.length > 0;
+    }
+
+    /**
+     * Checks if an edge is on the best route
+     * @param edge - edge index in the snapshot's graph
+     * @return true if on the best route
+     */
+    public boolean isBestRouteEdge(int edge) {
+        return bestRouteEdges.get(edge);
+    }
+
+    /**
+     * Gets the cost of the best route including traffic
+     * @return cost, NaN if there is no best route
+     */
+    public double getBestRouteCost() {
+        return bestRouteCost;
+    }
+
+    public long getRuntime() {
+        return runtime;
+    }
+}
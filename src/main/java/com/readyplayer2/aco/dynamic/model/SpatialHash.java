@@ -0,0 +1,203 @@
+package com.readyplayer2.aco.dynamic.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spatial hash of items on the plane, used to find what is under a point
+ * without checking every item. Each item is stored in every square cell that
+ * its area touches, so a point only has to look in its own cell. Only cells
+ * with items in are kept, so the area can be any size.
+ * @author ReadyPlayer2
+ */
+public class SpatialHash<T> {
+    private final double cellSize;
+    private final Map<Long, List<T>> cells = new HashMap<>();
+
+    /**
+     * Creates an empty spatial hash
+     * @param cellSize - width and height of a cell
+     */
+    public SpatialHash(double cellSize) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Removes every item
+     */
+    public void clear() {
+        cells.clear();
+    }
+
+    /**
+     * Adds an item covering a rectangle
+     * @param item - item to add
+     * @param minX - left of the rectangle
+     * @param minY - top of the rectangle
+     * @param maxX - right of the rectangle
+     * @param maxY - bottom of the rectangle
+     */
+    public void addBox(T item, double minX, double minY, double maxX, double maxY) {
+        updateBox(item, minX, minY, maxX, maxY, true);
+    }
+
+    /**
+     * Removes an item added with addBox, using the same rectangle
+     * @param item - item to remove
+     * @param minX - left of the rectangle
+     * @param minY - top of the rectangle
+     * @param maxX - right of the rectangle
+     * @param maxY - bottom of the rectangle
+     */
+    public void removeBox(T item, double minX, double minY, double maxX, double maxY) {
+        updateBox(item, minX, minY, maxX, maxY, false);
+    }
+
+    /**
+     * Adds an item covering a line segment widened by a margin. Only the
+     * cells near the line are used, not its whole bounding box.
+     * @param item - item to add
+     * @param x1 - start x
+     * @param y1 - start y
+     * @param x2 - end x
+     * @param y2 - end y
+     * @param margin - distance either side of the line which is covered
+     */
+    public void addSegment(T item, double x1, double y1, double x2, double y2, double margin) {
+        updateSegment(item, x1, y1, x2, y2, margin, true);
+    }
+
+    /**
+     * Removes an item added with addSegment, using the same line and margin
+     * @param item - item to remove
+     * @param x1 - start x
+     * @param y1 - start y
+     * @param x2 - end x
+     * @param y2 - end y
+     * @param margin - distance either side of the line which is covered
+     */
+    public void removeSegment(T item, double x1, double y1, double x2, double y2, double margin) {
+        updateSegment(item, x1, y1, x2, y2, margin, false);
+    }
+
+    /**
+     * Gets the items which may cover a point. The caller checks each one
+     * against its exact shape.
+     * @param x - x position
+     * @param y - y position
+     * @return items in the cell holding the point, must not be modified
+     */
+    public List<T> getCandidates(double x, double y) {
+        List<T> items = cells.get(key(cell(x), cell(y)));
+        return items == null ? Collections.<T>emptyList() : items;
+    }
+
+    /**
+     * Adds or removes an item in the cells of a widened segment, one column
+     * of cells at a time
+     * @param item - item
+     * @param x1 - start x
+     * @param y1 - start y
+     * @param x2 - end x
+     * @param y2 - end y
+     * @param margin - widening
+     * @param add - true to add, false to remove
+     */
+    private void updateSegment(T item, double x1, double y1, double x2, double y2, double margin, boolean add) {
+        if (x1 > x2) {
+            // Work left to right
+            double t = x1;
+            x1 = x2;
+            x2 = t;
+            t = y1;
+            y1 = y2;
+            y2 = t;
+        }
+        if (x1 == x2) {
+            updateBox(item, x1 - margin, Math.min(y1, y2) - margin, x2 + margin, Math.max(y1, y2) + margin, add);
+            return;
+        }
+        double slope = (y2 - y1) / (x2 - x1);
+        for (long cx = cell(x1 - margin); cx <= cell(x2 + margin); cx++) {
+            // Part of the line within reach of this column
+            double left = Math.max(x1, cx * cellSize - margin);
+            double right = Math.min(x2, (cx + 1) * cellSize + margin);
+            if (left > right) {
+                continue;
+            }
+            double ya = y1 + (left - x1) * slope;
+            double yb = y1 + (right - x1) * slope;
+            long top = cell(Math.min(ya, yb) - margin);
+            long bottom = cell(Math.max(ya, yb) + margin);
+            for (long cy = top; cy <= bottom; cy++) {
+                update(item, cx, cy, add);
+            }
+        }
+    }
+
+    /**
+     * Adds or removes an item in every cell of a rectangle
+     * @param item - item
+     * @param minX - left
+     * @param minY - top
+     * @param maxX - right
+     * @param maxY - bottom
+     * @param add - true to add, false to remove
+     */
+    private void updateBox(T item, double minX, double minY, double maxX, double maxY, boolean add) {
+        for (long cx = cell(minX); cx <= cell(maxX); cx++) {
+            for (long cy = cell(minY); cy <= cell(maxY); cy++) {
+                update(item, cx, cy, add);
+            }
+        }
+    }
+
+    /**
+     * Adds or removes an item in one cell, dropping the cell when it empties
+     * @param item - item
+     * @param cx - cell column
+     * @param cy - cell row
+     * @param add - true to add, false to remove
+     */
+    private void update(T item, long cx, long cy, boolean add) {
+        Long key = key(cx, cy);
+        List<T> items = cells.get(key);
+        if (add) {
+            if (items == null) {
+                items = new ArrayList<>(4);
+                cells.put(key, items);
+            }
+            items.add(item);
+        } else if (items != null) {
+            items.remove(item);
+            if (items.isEmpty()) {
+                cells.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Gets the cell coordinate of a position
+     * @param v - x or y position
+     * @return cell coordinate
+     */
+    private long cell(double v) {
+        return (long) Math.floor(v / cellSize);
+    }
+
+    /**
+     * Combines cell coordinates into a map key
+     * @param cx - cell column
+     * @param cy - cell row
+     * @return key
+     */
+    private static long key(long cx, long cy) {
+        return (cx << 32) ^ (cy & 0xFFFFFFFFL);
+    }
+}